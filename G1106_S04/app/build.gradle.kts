@@ -39,8 +39,11 @@ dependencies {
     implementation(libs.constraintlayout)
     implementation(libs.recyclerview)
     implementation(libs.room.runtime)
+    implementation(libs.lifecycle.livedata)
+    implementation(libs.work.runtime)
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation(libs.work.testing)
     annotationProcessor(libs.room.compiler)
 }
\ No newline at end of file
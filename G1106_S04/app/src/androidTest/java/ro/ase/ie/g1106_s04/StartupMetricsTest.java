@@ -0,0 +1,53 @@
+package ro.ase.ie.g1106_s04;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import ro.ase.ie.g1106_s04.activities.MainActivity;
+import ro.ase.ie.g1106_s04.activities.StartupTracer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Launches MainActivity and checks the time-to-first-row measured from onCreate against a budget,
+ * overridable with -e maxTimeToFirstRowMs. The time from process start includes the test runner,
+ * so it is only reported.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupMetricsTest {
+    private static final long DEFAULT_BUDGET_MS = 2000;
+
+    @Test
+    public void timeToFirstRowIsRecordedWithinBudget() throws InterruptedException {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.getSharedPreferences(StartupTracer.PREFERENCES, Context.MODE_PRIVATE).edit().clear().commit();
+        long budget = Long.parseLong(InstrumentationRegistry.getArguments()
+                .getString("maxTimeToFirstRowMs", String.valueOf(DEFAULT_BUDGET_MS)));
+
+        long timeToFirstRow = -1;
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            long deadline = SystemClock.elapsedRealtime() + 10_000;
+            while (timeToFirstRow < 0 && SystemClock.elapsedRealtime() < deadline) {
+                Thread.sleep(50);
+                timeToFirstRow = StartupTracer.getTimeToFirstRowFromCreate(context);
+            }
+        }
+
+        Bundle report = new Bundle();
+        report.putLong(StartupTracer.TIME_TO_FIRST_ROW_FROM_CREATE, timeToFirstRow);
+        report.putLong(StartupTracer.TIME_TO_FIRST_ROW, StartupTracer.getTimeToFirstRow(context));
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, report);
+
+        assertTrue("time to first row was not recorded", timeToFirstRow >= 0);
+        assertTrue("time to first row " + timeToFirstRow + " ms exceeds " + budget + " ms",
+                timeToFirstRow <= budget);
+    }
+}
@@ -0,0 +1,131 @@
+package ro.ase.ie.g1106_s04.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.Date;
+
+import ro.ase.ie.g1106_s04.model.Movie;
+
+import static org.junit.Assert.*;
+
+/**
+ * Backs up the app database, changes it and restores it. A backup with a damaged payload or a
+ * schema newer than the app must be refused and leave the current database as it was.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseBackupTest {
+    //magic and format come first, then the schema version
+    private static final int SCHEMA_OFFSET = 8;
+    private Context context;
+    private DatabaseBackup databaseBackup;
+    private File backupFile;
+    private Movie movie;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        databaseBackup = new DatabaseBackup(context);
+        backupFile = new File(context.getCacheDir(), "backup-test.bak");
+        movie = new Movie();
+        movie.setTitle("Backup test " + System.nanoTime());
+        movie.setRelease(new Date(1_000_000_000_000L));
+        movie.setRating(4f);
+        dao().upsertMovie(movie);
+    }
+
+    @After
+    public void tearDown() {
+        dao().deleteByKeys(Collections.singletonList(key()));
+        backupFile.delete();
+    }
+
+    //the instance is reopened after a restore, so it is looked up every time
+    private MovieDAO dao() {
+        return DatabaseManager.getInstance(context).getMovieDao();
+    }
+
+    private MovieKey key() {
+        return new MovieKey(movie.getTitle(), movie.getRelease());
+    }
+
+    private boolean movieExists() {
+        return dao().getMovie(movie.getTitle(), movie.getRelease()) != null;
+    }
+
+    @Test
+    public void restore_bringsBackTheBackedUpRows() throws IOException {
+        DatabaseBackup.BackupInfo info = databaseBackup.backup(backupFile);
+        assertTrue(info.backupBytes > 0);
+        dao().deleteByKeys(Collections.singletonList(key()));
+        assertFalse(movieExists());
+
+        DatabaseBackup.BackupInfo restored = databaseBackup.restore(backupFile);
+
+        assertEquals(info.schemaVersion, restored.schemaVersion);
+        assertEquals(info.databaseBytes, restored.databaseBytes);
+        assertTrue(movieExists());
+        File databaseFile = context.getDatabasePath(DatabaseManager.databaseName);
+        assertFalse(new File(databaseFile.getPath() + ".old").exists());
+        assertFalse(new File(databaseFile.getPath() + ".restore").exists());
+    }
+
+    @Test
+    public void restore_corruptPayload_isRefused() throws IOException {
+        databaseBackup.backup(backupFile);
+        try (RandomAccessFile file = new RandomAccessFile(backupFile, "rw")) {
+            long middle = file.length() / 2;
+            file.seek(middle);
+            int value = file.read();
+            file.seek(middle);
+            file.write(value ^ 0xFF);
+        }
+        dao().deleteByKeys(Collections.singletonList(key()));
+
+        try {
+            databaseBackup.restore(backupFile);
+            fail("a damaged backup was restored");
+        } catch (IOException expected) {
+            //the checksum or the gzip stream catches it
+        }
+        assertFalse(movieExists());
+    }
+
+    @Test
+    public void restore_newerSchema_isRefused() throws IOException {
+        DatabaseBackup.BackupInfo info = databaseBackup.backup(backupFile);
+        try (RandomAccessFile file = new RandomAccessFile(backupFile, "rw")) {
+            file.seek(SCHEMA_OFFSET);
+            file.writeInt(info.schemaVersion + 1);
+        }
+        dao().deleteByKeys(Collections.singletonList(key()));
+
+        try {
+            databaseBackup.restore(backupFile);
+            fail("a backup from a newer schema was restored");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("newer"));
+        }
+        assertFalse(movieExists());
+    }
+
+    @Test(expected = IOException.class)
+    public void restore_notABackup_isRefused() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(backupFile, "rw")) {
+            file.writeInt(0);
+            file.writeInt(0);
+        }
+        databaseBackup.restore(backupFile);
+    }
+}
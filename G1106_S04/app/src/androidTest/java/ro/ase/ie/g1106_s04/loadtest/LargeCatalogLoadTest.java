@@ -0,0 +1,237 @@
+package ro.ase.ie.g1106_s04.loadtest;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ro.ase.ie.g1106_s04.R;
+import ro.ase.ie.g1106_s04.activities.MainActivity;
+import ro.ase.ie.g1106_s04.database.DatabaseManager;
+import ro.ase.ie.g1106_s04.database.MovieSynchronizer;
+import ro.ase.ie.g1106_s04.sync.MovieFeedSync;
+
+import static org.junit.Assert.*;
+
+/**
+ * End-to-end run against a synthetic catalog served from the device itself.
+ * Arguments (-e): movieCount (default 100000), latencyMillis, errorRate.
+ * Results are logged under LoadTest and sent as instrumentation status.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class LargeCatalogLoadTest {
+    private static final String TAG = "LoadTest";
+    private static final int DEFAULT_MOVIE_COUNT = 100_000;
+    private static final long FRAME_BUDGET_NANOS = 16_666_667L;
+
+    private Context context;
+    private DatabaseManager databaseManager;
+    private SyntheticMovieGenerator generator;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        databaseManager = DatabaseManager.getInstance(context);
+        databaseManager.clearAllTables();
+        generator = new SyntheticMovieGenerator(42, 64);
+    }
+
+    @Test
+    public void syncAndScrollLargeCatalog() throws Exception {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        int movieCount = Integer.parseInt(arguments.getString("movieCount", String.valueOf(DEFAULT_MOVIE_COUNT)));
+        long latencyMillis = Long.parseLong(arguments.getString("latencyMillis", "0"));
+        double errorRate = Double.parseDouble(arguments.getString("errorRate", "0"));
+
+        HeapSampler heapSampler = new HeapSampler();
+        try (LocalFeedServer server = new LocalFeedServer(generator)) {
+            server.setFeed(generator.feedJson(movieCount, server.baseUrl()));
+            //the served feed belongs to the test, it is part of the baseline and not of the peak
+            heapSampler.start();
+            server.setLatencyMillis(latencyMillis);
+            server.setErrorRate(errorRate);
+            MovieFeedSync feedSync = new MovieFeedSync(context);
+
+            long start = SystemClock.elapsedRealtime();
+            MovieSynchronizer.SyncResult first = feedSync.run(server.feedUrl());
+            long firstSyncMillis = SystemClock.elapsedRealtime() - start;
+            assertEquals(movieCount, first.inserted);
+
+            start = SystemClock.elapsedRealtime();
+            MovieSynchronizer.SyncResult second = feedSync.run(server.feedUrl());
+            long unchangedSyncMillis = SystemClock.elapsedRealtime() - start;
+            assertEquals(movieCount, second.unchanged);
+            assertFalse(second.hasChanges());
+
+            FrameStats frames = scrollMovieList(movieCount);
+            heapSampler.stop();
+
+            Bundle report = new Bundle();
+            report.putInt("movieCount", movieCount);
+            report.putLong("firstSyncMillis", firstSyncMillis);
+            report.putLong("unchangedSyncMillis", unchangedSyncMillis);
+            report.putLong("baselineJavaHeapBytes", heapSampler.baselineJavaHeap);
+            report.putLong("peakJavaHeapBytes", heapSampler.peakJavaHeap - heapSampler.baselineJavaHeap);
+            report.putLong("peakNativeHeapBytes", heapSampler.peakNativeHeap - heapSampler.baselineNativeHeap);
+            report.putInt("frames", frames.count);
+            report.putLong("frameP50Micros", frames.percentileMicros(50));
+            report.putLong("frameP90Micros", frames.percentileMicros(90));
+            report.putLong("frameP99Micros", frames.percentileMicros(99));
+            report.putInt("jankyFrames", frames.janky);
+            report.putInt("feedRequests", server.getRequestCount("/feed"));
+            report.putInt("posterRequests", server.getRequestCount("/poster"));
+            report.putInt("injectedErrors", server.getInjectedErrorCount());
+            Log.i(TAG, report.toString());
+            InstrumentationRegistry.getInstrumentation().sendStatus(0, report);
+        } finally {
+            heapSampler.stop();
+        }
+    }
+
+    @Test
+    public void feedSyncRetriesInjectedFailures() throws Exception {
+        try (LocalFeedServer server = new LocalFeedServer(generator)) {
+            server.setFeed(generator.feedJson(500, server.baseUrl()));
+            server.failNextRequests(2);
+
+            MovieSynchronizer.SyncResult result = new MovieFeedSync(context).run(server.feedUrl());
+
+            assertEquals(500, result.inserted);
+            assertEquals(2, server.getInjectedErrorCount());
+            //thumbnail prefetch hits the same server in the background, only feed requests are counted
+            assertEquals(3, server.getRequestCount("/feed"));
+        }
+    }
+
+    private FrameStats scrollMovieList(int movieCount) throws InterruptedException {
+        FrameStats frames = new FrameStats();
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            AtomicInteger itemCount = new AtomicInteger();
+            long deadline = SystemClock.elapsedRealtime() + 60_000;
+            while (itemCount.get() < movieCount && SystemClock.elapsedRealtime() < deadline) {
+                scenario.onActivity(activity -> {
+                    RecyclerView recyclerView = activity.findViewById(R.id.recyclerView);
+                    itemCount.set(recyclerView.getAdapter().getItemCount());
+                });
+                Thread.sleep(100);
+            }
+            assertTrue("list never showed the catalog", itemCount.get() >= movieCount);
+
+            CountDownLatch done = new CountDownLatch(1);
+            scenario.onActivity(activity -> {
+                RecyclerView recyclerView = activity.findViewById(R.id.recyclerView);
+                Choreographer.getInstance().postFrameCallback(frames);
+                for (int i = 0; i < 10; i++) {
+                    int distance = (i % 2 == 0 ? 1 : -1) * 15_000;
+                    recyclerView.postDelayed(() -> recyclerView.smoothScrollBy(0, distance), i * 800L);
+                }
+                recyclerView.postDelayed(() -> {
+                    frames.stop();
+                    done.countDown();
+                }, 8_500);
+            });
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        }
+        return frames;
+    }
+
+    private static class FrameStats implements Choreographer.FrameCallback {
+        private final List<Long> intervals = Collections.synchronizedList(new ArrayList<>());
+        private long lastFrameNanos;
+        private volatile boolean stopped;
+        int count;
+        int janky;
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (stopped)
+                return;
+            if (lastFrameNanos != 0) {
+                long interval = frameTimeNanos - lastFrameNanos;
+                intervals.add(interval);
+                count++;
+                if (interval > FRAME_BUDGET_NANOS * 3 / 2)
+                    janky++;
+            }
+            lastFrameNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        long percentileMicros(int percentile) {
+            List<Long> sorted = new ArrayList<>(intervals);
+            if (sorted.isEmpty())
+                return 0;
+            Collections.sort(sorted);
+            int index = Math.min(sorted.size() - 1, sorted.size() * percentile / 100);
+            return TimeUnit.NANOSECONDS.toMicros(sorted.get(index));
+        }
+    }
+
+    private static class HeapSampler implements Runnable {
+        private volatile boolean running;
+        private Thread thread;
+        volatile long peakJavaHeap;
+        volatile long peakNativeHeap;
+        long baselineJavaHeap;
+        long baselineNativeHeap;
+
+        //peaks are reported above what was live when sampling started
+        void start() {
+            Runtime runtime = Runtime.getRuntime();
+            runtime.gc();
+            baselineJavaHeap = runtime.totalMemory() - runtime.freeMemory();
+            baselineNativeHeap = Debug.getNativeHeapAllocatedSize();
+            peakJavaHeap = baselineJavaHeap;
+            peakNativeHeap = baselineNativeHeap;
+            running = true;
+            thread = new Thread(this, "HeapSampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() {
+            running = false;
+        }
+
+        @Override
+        public void run() {
+            Runtime runtime = Runtime.getRuntime();
+            while (running) {
+                peakJavaHeap = Math.max(peakJavaHeap, runtime.totalMemory() - runtime.freeMemory());
+                peakNativeHeap = Math.max(peakNativeHeap, Debug.getNativeHeapAllocatedSize());
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            Log.d(TAG, String.format(Locale.US, "heap sampler stopped, peak java %d KB",
+                    peakJavaHeap / 1024));
+        }
+    }
+}
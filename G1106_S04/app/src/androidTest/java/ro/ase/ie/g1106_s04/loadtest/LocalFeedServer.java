@@ -0,0 +1,148 @@
+package ro.ase.ie.g1106_s04.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal HTTP/1.1 server on the loopback interface standing in for jsonkeeper:
+ * GET /feed returns the synthetic feed, GET /poster/{n}.png a synthetic poster.
+ * Latency and a failure rate (503 responses) can be injected per request.
+ */
+public class LocalFeedServer implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers = Executors.newFixedThreadPool(8);
+    private final ConcurrentHashMap<Integer, byte[]> posters = new ConcurrentHashMap<>();
+    private final SyntheticMovieGenerator generator;
+    private final Random random = new Random(7);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ConcurrentHashMap<String, AtomicInteger> requestsByPath = new ConcurrentHashMap<>();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final AtomicInteger forcedFailures = new AtomicInteger();
+    private volatile byte[] feed = new byte[0];
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+
+    public LocalFeedServer(SyntheticMovieGenerator generator) throws IOException {
+        this.generator = generator;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "LocalFeedServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public String feedUrl() {
+        return baseUrl() + "/feed";
+    }
+
+    public void setFeed(String json) {
+        feed = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    //deterministic variant of the error rate: the next n feed requests fail, posters are not affected
+    public void failNextRequests(int count) {
+        forcedFailures.set(count);
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    //"/feed" or "/poster", a sync also fetches thumbnails from this server in the background
+    public int getRequestCount(String path) {
+        AtomicInteger count = requestsByPath.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    public int getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                workers.execute(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket client = socket) {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+            String requestLine = reader.readLine();
+            String header;
+            while ((header = reader.readLine()) != null && !header.isEmpty()) {
+                //headers are not needed
+            }
+            requests.incrementAndGet();
+            if (latencyMillis > 0)
+                Thread.sleep(latencyMillis);
+
+            OutputStream out = client.getOutputStream();
+            String path = requestLine == null ? "" : requestLine.split(" ")[1];
+            String group = path.startsWith("/poster/") ? "/poster" : path;
+            requestsByPath.computeIfAbsent(group, p -> new AtomicInteger()).incrementAndGet();
+            boolean fail;
+            synchronized (random) {
+                fail = random.nextDouble() < errorRate;
+            }
+            if (path.equals("/feed") && forcedFailures.getAndUpdate(n -> Math.max(0, n - 1)) > 0)
+                fail = true;
+            if (fail) {
+                injectedErrors.incrementAndGet();
+                respond(out, 503, "text/plain", "injected failure".getBytes(StandardCharsets.US_ASCII));
+            } else if (path.equals("/feed")) {
+                respond(out, 200, "application/json", feed);
+            } else if (path.startsWith("/poster/") && path.endsWith(".png")) {
+                int variant = Integer.parseInt(path.substring("/poster/".length(), path.length() - 4));
+                respond(out, 200, "image/png", posters.computeIfAbsent(variant, generator::posterPng));
+            } else {
+                respond(out, 404, "text/plain", "not found".getBytes(StandardCharsets.US_ASCII));
+            }
+        } catch (IOException | InterruptedException | RuntimeException ignored) {
+            //the client gave up, nothing to answer
+        }
+    }
+
+    private static void respond(OutputStream out, int status, String contentType, byte[] body) throws IOException {
+        String head = "HTTP/1.1 " + status + (status == 200 ? " OK" : " Error") + "\r\n" +
+                "Content-Type: " + contentType + "\r\n" +
+                "Content-Length: " + body.length + "\r\n" +
+                "Connection: close\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,76 @@
+package ro.ase.ie.g1106_s04.loadtest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+import java.util.Random;
+
+import ro.ase.ie.g1106_s04.model.GenreEnum;
+import ro.ase.ie.g1106_s04.model.ParentalGuidanceEnum;
+
+/**
+ * Deterministic feed and poster generator: same seed, same catalog. Values follow rough
+ * real-world shapes (ratings around 3.5, long-tailed budgets, 80-180 minute runtimes).
+ */
+public class SyntheticMovieGenerator {
+    private static final String[] WORDS = {"Last", "Dark", "Night", "River", "Empire", "Silent", "Red",
+            "Storm", "Garden", "Winter", "Lost", "City", "Star", "Return", "Secret", "Iron", "Glass",
+            "Shadow", "Summer", "Kingdom", "Road", "Ghost", "Blue", "Heart"};
+
+    private final long seed;
+    private final int posterVariants;
+
+    public SyntheticMovieGenerator(long seed, int posterVariants) {
+        this.seed = seed;
+        this.posterVariants = posterVariants;
+    }
+
+    //one movie per line, so HttpManager reads it line by line like the real feed
+    public String feedJson(int count, String posterBaseUrl) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(count * 260);
+        json.append("[\n");
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                json.append(",\n");
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            int year = 1950 + random.nextInt(75);
+            double rating = Math.max(0.5, Math.min(5.0, Math.round((3.5 + random.nextGaussian() * 0.8) * 2) / 2.0));
+            double budget = Math.round(Math.exp(14 + random.nextGaussian() * 1.5));
+            int duration = 80 + random.nextInt(100);
+            GenreEnum genre = GenreEnum.values()[random.nextInt(GenreEnum.values().length)];
+            ParentalGuidanceEnum guidance =
+                    ParentalGuidanceEnum.values()[random.nextInt(ParentalGuidanceEnum.values().length)];
+            json.append(String.format(Locale.US,
+                    "{\"title\":\"%s\",\"budget\":%.1f,\"release\":\"%04d-%02d-%02d\",\"rating\":%.1f," +
+                            "\"poster\":\"%s/poster/%d.png\",\"duration\":%d,\"genre\":\"%s\"," +
+                            "\"watched\":%b,\"guidance\":\"%s\"}",
+                    title, budget, year, 1 + random.nextInt(12), 1 + random.nextInt(28), rating,
+                    posterBaseUrl, random.nextInt(posterVariants), duration, genre.name(),
+                    random.nextInt(4) == 0, guidance.name()));
+        }
+        json.append("\n]");
+        return json.toString();
+    }
+
+    //a poster-sized PNG, so decode and thumbnail costs are realistic
+    public byte[] posterPng(int variant) {
+        Random random = new Random(seed * 31 + variant);
+        Bitmap bitmap = Bitmap.createBitmap(600, 900, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+        Paint paint = new Paint();
+        for (int i = 0; i < 40; i++) {
+            paint.setColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            canvas.drawCircle(random.nextInt(600), random.nextInt(900), 20 + random.nextInt(120), paint);
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, png);
+        bitmap.recycle();
+        return png.toByteArray();
+    }
+}
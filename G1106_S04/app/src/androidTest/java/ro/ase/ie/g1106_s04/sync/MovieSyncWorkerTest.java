@@ -0,0 +1,148 @@
+package ro.ase.ie.g1106_s04.sync;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.work.Data;
+import androidx.work.ListenableWorker;
+import androidx.work.testing.TestListenableWorkerBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ro.ase.ie.g1106_s04.database.DatabaseManager;
+import ro.ase.ie.g1106_s04.database.SyncLogDAO;
+import ro.ase.ie.g1106_s04.loadtest.LocalFeedServer;
+import ro.ase.ie.g1106_s04.loadtest.SyntheticMovieGenerator;
+import ro.ase.ie.g1106_s04.model.SyncLogEntry;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs MovieSyncWorker directly against a feed served from the device and checks how overlapping
+ * triggers are merged and what every run leaves in SyncLog.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MovieSyncWorkerTest {
+    private static final int MAX_ATTEMPTS = 5;
+    private Context context;
+    private SyncLogDAO syncLog;
+    private LocalFeedServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        syncLog = DatabaseManager.getInstance(context).getSyncLogDao();
+        syncLog.trim(0);
+        SyntheticMovieGenerator generator = new SyntheticMovieGenerator(7, 4);
+        server = new LocalFeedServer(generator);
+        server.setFeed(generator.feedJson(50, server.baseUrl()));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+        syncLog.trim(0);
+    }
+
+    private ListenableWorker.Result runWorker(String source, int runAttemptCount) {
+        return runWorker(source, runAttemptCount, server.feedUrl());
+    }
+
+    private ListenableWorker.Result runWorker(String source, int runAttemptCount, String feedUrl) {
+        MovieSyncWorker worker = TestListenableWorkerBuilder.from(context, MovieSyncWorker.class)
+                .setInputData(new Data.Builder()
+                        .putString(MovieSyncWorker.KEY_SOURCE, source)
+                        .putString(MovieSyncWorker.KEY_FEED_URL, feedUrl)
+                        .build())
+                .setRunAttemptCount(runAttemptCount)
+                .build();
+        return worker.doWork();
+    }
+
+    private SyncLogEntry lastEntry() {
+        List<SyncLogEntry> entries = syncLog.getRecent(1);
+        assertEquals(1, entries.size());
+        return entries.get(0);
+    }
+
+    @Test
+    public void run_downloadsAndLogsSuccess() {
+        assertEquals(ListenableWorker.Result.success(), runWorker(SyncScheduler.CHARGING_WORK, 0));
+        SyncLogEntry entry = lastEntry();
+        assertEquals(SyncLogEntry.SUCCESS, entry.outcome);
+        assertEquals(SyncScheduler.CHARGING_WORK, entry.source);
+        assertEquals(50, entry.inserted + entry.updated + entry.unchanged);
+        assertEquals(1, server.getRequestCount("/feed"));
+    }
+
+    @Test
+    public void secondTrigger_afterFreshSuccess_isCoalesced() {
+        runWorker(SyncScheduler.CHARGING_WORK, 0);
+        assertEquals(ListenableWorker.Result.success(), runWorker(SyncScheduler.UNMETERED_WORK, 0));
+        SyncLogEntry entry = lastEntry();
+        assertEquals(SyncLogEntry.COALESCED, entry.outcome);
+        assertEquals(SyncScheduler.UNMETERED_WORK, entry.source);
+        assertEquals(1, server.getRequestCount("/feed"));
+    }
+
+    @Test
+    public void oldSuccess_doesNotCoalesce() {
+        SyncLogEntry old = new SyncLogEntry();
+        old.startedAt = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+        old.outcome = SyncLogEntry.SUCCESS;
+        syncLog.insert(old);
+        runWorker(SyncScheduler.UNMETERED_WORK, 0);
+        assertEquals(SyncLogEntry.SUCCESS, lastEntry().outcome);
+        assertEquals(1, server.getRequestCount("/feed"));
+    }
+
+    @Test
+    public void triggerDuringAnotherRun_isCoalesced() throws InterruptedException {
+        //the lock is reentrant, so it has to be held by a thread other than the worker's
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            MovieSyncWorker.running.lock();
+            try {
+                held.countDown();
+                release.await();
+            } catch (InterruptedException ignored) {
+            } finally {
+                MovieSyncWorker.running.unlock();
+            }
+        });
+        other.start();
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+        try {
+            assertEquals(ListenableWorker.Result.success(), runWorker(SyncScheduler.INITIAL_WORK, 0));
+        } finally {
+            release.countDown();
+            other.join();
+        }
+        assertEquals(SyncLogEntry.COALESCED, lastEntry().outcome);
+        assertEquals(0, server.getRequestCount("/feed"));
+    }
+
+    @Test
+    public void failedDownload_retriesUntilTheLastAttempt() {
+        //nothing listens there; another host name, so the breaker it opens does not affect 127.0.0.1
+        String deadFeed = "http://localhost:1/feed";
+        assertEquals(ListenableWorker.Result.retry(), runWorker(SyncScheduler.CHARGING_WORK, 0, deadFeed));
+        assertEquals(SyncLogEntry.RETRY, lastEntry().outcome);
+        assertNotNull(lastEntry().error);
+
+        assertEquals(ListenableWorker.Result.failure(),
+                runWorker(SyncScheduler.CHARGING_WORK, MAX_ATTEMPTS - 1, deadFeed));
+        assertEquals(SyncLogEntry.FAILURE, lastEntry().outcome);
+    }
+}
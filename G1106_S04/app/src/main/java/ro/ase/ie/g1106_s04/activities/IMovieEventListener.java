@@ -3,4 +3,6 @@ package ro.ase.ie.g1106_s04.activities;
 public interface IMovieEventListener {
     void onMovieClick(int position);
     void onMovieDelete(int position);
+    void onMovieRatingChanged(int position, float rating);
+    void onSelectionChanged(int selectedCount);
 }
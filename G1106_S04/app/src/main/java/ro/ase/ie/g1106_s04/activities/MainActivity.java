@@ -1,5 +1,6 @@
 package ro.ase.ie.g1106_s04.activities;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
@@ -8,6 +9,7 @@ import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
+import android.view.ViewTreeObserver;
 import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
@@ -16,46 +18,64 @@ import androidx.activity.result.ActivityResultCallback;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 import ro.ase.ie.g1106_s04.R;
 import ro.ase.ie.g1106_s04.adapters.MovieAdapter;
+import ro.ase.ie.g1106_s04.database.DatabaseBackup;
 import ro.ase.ie.g1106_s04.database.DatabaseManager;
+import ro.ase.ie.g1106_s04.database.DebouncedLiveData;
 import ro.ase.ie.g1106_s04.database.MovieDAO;
-import ro.ase.ie.g1106_s04.model.GenreEnum;
+import ro.ase.ie.g1106_s04.database.MovieKey;
+import ro.ase.ie.g1106_s04.database.MovieSortOrder;
+import ro.ase.ie.g1106_s04.database.MovieWatchedUpdate;
+import ro.ase.ie.g1106_s04.model.CompactCatalog;
 import ro.ase.ie.g1106_s04.model.Movie;
-import ro.ase.ie.g1106_s04.model.ParentalGuidanceEnum;
-import ro.ase.ie.g1106_s04.networking.HttpManager;
+import ro.ase.ie.g1106_s04.model.SyncLogEntry;
+import ro.ase.ie.g1106_s04.networking.ThumbnailStore;
+import ro.ase.ie.g1106_s04.similarity.SimilarityIndex;
+import ro.ase.ie.g1106_s04.sync.MovieFeedSync;
+import ro.ase.ie.g1106_s04.sync.SyncScheduler;
 
 public class MainActivity extends AppCompatActivity implements IMovieEventListener{
 
     private static final int ADD_MOVIE = 100;
     private static final int UPDATE_MOVIE = 200;
+    private static final long REFRESH_DEBOUNCE_MS = 300;
+    private static final int SYNC_LOG_ROWS = 10;
     private ActivityResultLauncher<Intent> launcher;
-    private final ArrayList<Movie> movieList = new ArrayList<>();
     private MovieAdapter movieAdapter;
     private RecyclerView recyclerView;
     private DatabaseManager databaseManager;
     private MovieDAO movieTable;
+    private int selectedCount;
+    private StartupTracer startupTracer;
+    private final MutableLiveData<MovieSortOrder> sortOrder = new MutableLiveData<>(MovieSortOrder.TITLE);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        startupTracer = new StartupTracer(this);
+
+        //stage 1: layout with placeholder rows, nothing here touches the disk or the network
+        startupTracer.beginStage("inflate");
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_main);
         ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
@@ -63,16 +83,10 @@ public class MainActivity extends AppCompatActivity implements IMovieEventListen
             v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
             return insets;
         });
-        movieAdapter=new MovieAdapter(this,movieList);
+        movieAdapter=new MovieAdapter(this);
         recyclerView = findViewById(R.id.recyclerView);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(movieAdapter);
-        databaseManager = DatabaseManager.getInstance(getApplicationContext());
-        movieTable = databaseManager.getMovieDao();
-        List<Movie> allMovies = databaseManager.getMovieDao().getAllMovies();
-        movieList.addAll(allMovies);
-        movieAdapter.notifyDataSetChanged();
-        fetchMovies();
         launcher = registerForActivityResult(new ActivityResultContracts.StartActivityForResult(),
                 new ActivityResultCallback<ActivityResult>() {
                     @Override
@@ -82,19 +96,67 @@ public class MainActivity extends AppCompatActivity implements IMovieEventListen
 
                             Intent data = o.getData();
                             Movie movie = data.getParcelableExtra("movie");
-                            if(!movieList.contains(movie)){
-                                movieList.add(movie);
-                            }
-                            else{
-                                int position=movieList.indexOf(movie);
-                                movieList.set(position, movie);
-                            }
-                            movieTable.insertMovie(movie);
+                            movieAdapter.upsertMovie(movie);
+                            writeMovies(dao -> dao.upsertMovie(movie));
+                            ThumbnailStore.getInstance(getApplicationContext()).enqueue(movie);
                             Log.d("MainActivityTag", movie.toString());
-                            movieAdapter.notifyDataSetChanged();
                         }
                     }
                 });
+        databaseManager = DatabaseManager.getInstance(getApplicationContext());
+        movieTable = databaseManager.getMovieDao();
+        startupTracer.endStage();
+
+        //stage 2: open (and migrate) the database off the main thread, then start observing
+        Handler handler = new Handler(Looper.getMainLooper());
+        DatabaseManager database = databaseManager;
+        DatabaseManager.databaseWriteExecutor.execute(() -> {
+            startupTracer.beginStage("openDatabase");
+            database.getOpenHelper().getWritableDatabase();
+            startupTracer.endStage();
+            handler.post(this::observeMovies);
+        });
+    }
+
+    private void observeMovies() {
+        if(isDestroyed())
+            return;
+        //the list re-runs only when MovieTable is invalidated, bursts of writes are merged
+        //changing the sort only swaps the indexed query behind the list
+        //only the columns a row shows are read, straight into compact columns; MovieActivity
+        //loads the full movie by key
+        //while a restore runs there is no database, the list keeps its rows until recreate()
+        LiveData<CompactCatalog> sortedMovies = Transformations.switchMap(sortOrder,
+                order -> databaseManager == null ? new MutableLiveData<>() : databaseManager.observeCatalog(order.rowQuery()));
+        new DebouncedLiveData<>(sortedMovies, REFRESH_DEBOUNCE_MS)
+                .observe(this, movies -> {
+                    boolean firstLoad = !startupTracer.isFirstRowRecorded();
+                    if(firstLoad)
+                        startupTracer.beginStage("bindFirstRows");
+                    movieAdapter.setMovies(movies);
+                    if(firstLoad) {
+                        startupTracer.endStage();
+                        awaitFirstRowsDrawn();
+                    }
+                });
+    }
+
+    //stage 3: once the real rows are on screen, record the metric and only then schedule the sync
+    private void awaitFirstRowsDrawn() {
+        recyclerView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                recyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                recyclerView.post(() -> {
+                    if(startupTracer.isFirstRowRecorded())
+                        return;
+                    startupTracer.markFirstRow();
+                    reportFullyDrawn();
+                    scheduleSync();
+                });
+                return true;
+            }
+        });
     }
 
     @Override
@@ -104,6 +166,14 @@ public class MainActivity extends AppCompatActivity implements IMovieEventListen
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        menu.findItem(R.id.delete_selected_menu_item).setVisible(selectedCount > 0);
+        menu.findItem(R.id.watch_selected_menu_item).setVisible(selectedCount > 0);
+        menu.findItem(sortMenuItemId(sortOrder.getValue())).setChecked(true);
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
 
@@ -114,6 +184,41 @@ public class MainActivity extends AppCompatActivity implements IMovieEventListen
             intent.putExtra("action_code", ADD_MOVIE);
             launcher.launch(intent);
         }
+        else if(item.getItemId() == R.id.delete_selected_menu_item)
+        {
+            List<MovieKey> selected = movieAdapter.getSelectedMovies();
+            for(MovieKey key : selected) {
+                movieAdapter.removeMovie(key);
+            }
+            writeMovies(dao -> dao.deleteByKeys(selected));
+            movieAdapter.clearSelection();
+        }
+        else if(item.getItemId() == R.id.watch_selected_menu_item)
+        {
+            List<MovieWatchedUpdate> updates = new ArrayList<>();
+            for(MovieKey key : movieAdapter.getSelectedMovies()) {
+                updates.add(MovieWatchedUpdate.of(key, true));
+            }
+            writeMovies(dao -> dao.setWatched(updates));
+            movieAdapter.clearSelection();
+        }
+        else if(sortOrderFor(item.getItemId()) != null)
+        {
+            sortOrder.setValue(sortOrderFor(item.getItemId()));
+            item.setChecked(true);
+        }
+        else if(item.getItemId() == R.id.backup_menu_item)
+        {
+            backupDatabase();
+        }
+        else if(item.getItemId() == R.id.restore_menu_item)
+        {
+            restoreDatabase();
+        }
+        else if(item.getItemId() == R.id.sync_log_menu_item)
+        {
+            showSyncLog();
+        }
         else if(item.getItemId() == R.id.about_menu_item)
         {
             Toast.makeText(MainActivity.this,
@@ -123,100 +228,181 @@ public class MainActivity extends AppCompatActivity implements IMovieEventListen
         return super.onOptionsItemSelected(item);
     }
 
+    private MovieSortOrder sortOrderFor(int menuItemId) {
+        if(menuItemId == R.id.sort_rating_menu_item)
+            return MovieSortOrder.RATING;
+        if(menuItemId == R.id.sort_budget_menu_item)
+            return MovieSortOrder.BUDGET;
+        if(menuItemId == R.id.sort_duration_menu_item)
+            return MovieSortOrder.DURATION;
+        if(menuItemId == R.id.sort_release_menu_item)
+            return MovieSortOrder.RELEASE;
+        if(menuItemId == R.id.sort_title_menu_item)
+            return MovieSortOrder.TITLE;
+        return null;
+    }
+
+    private int sortMenuItemId(MovieSortOrder order) {
+        switch (order) {
+            case RATING:
+                return R.id.sort_rating_menu_item;
+            case BUDGET:
+                return R.id.sort_budget_menu_item;
+            case DURATION:
+                return R.id.sort_duration_menu_item;
+            case RELEASE:
+                return R.id.sort_release_menu_item;
+            default:
+                return R.id.sort_title_menu_item;
+        }
+    }
+
     @Override
     public void onMovieClick(int position) {
-        Movie currentMovie = movieList.get(position);
+        MovieKey key = movieAdapter.getMovieKey(position);
         Intent intent = new Intent(MainActivity.this, MovieActivity.class);
         intent.putExtra("action_code", UPDATE_MOVIE);
-        intent.putExtra("movie", currentMovie);
+        intent.putExtra("movie_title", key.title);
+        intent.putExtra("movie_release", key.release.getTime());
         launcher.launch(intent);
     }
 
     @Override
     public void onMovieDelete(int position) {
-        movieTable.deleteMovie(movieList.get(position));
-        movieList.remove(position);
-        movieAdapter.notifyDataSetChanged();
+        MovieKey key = movieAdapter.getMovieKey(position);
+        movieAdapter.removeMovie(key);
+        writeMovies(dao -> dao.deleteByKeys(Collections.singletonList(key)));
     }
 
-    private List<Movie> parseMovies(String jsonResult){
-        List<Movie> list = new ArrayList<>();
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.US);
+    @Override
+    public void onMovieRatingChanged(int position, float rating) {
+        MovieKey key = movieAdapter.getMovieKey(position);
+        writeMovies(dao -> dao.setRating(key.title, key.release, rating));
+    }
 
-        try {
-            JSONArray array = new JSONArray(jsonResult);
-            for(int i = 0; i < array.length(); i++){
-                JSONObject obj = array.getJSONObject(i);
-
-                String title = obj.getString("title");
-                double budget = obj.getDouble("budget");
-                // Correct Date Parsing
-                String releaseStr = obj.getString("release");
-                Date release = null;
-                try {
-                    release = sdf.parse(releaseStr);
-                } catch (java.text.ParseException e) {
-                    e.printStackTrace();
-                    release = new Date(); // Fallback to current date or handle appropriate error
-                }
-
-                double rating = obj.getDouble("rating");
-                String poster = obj.getString("poster");
-                int duration = obj.getInt("duration");
-                String genre = obj.getString("genre");
-                boolean watched = obj.getBoolean("watched");
-                String guidance = obj.getString("guidance");
-
-                Movie movie = new Movie();
-                movie.setTitle(title);
-                movie.setBudget(budget);
-                movie.setRelease(release);
-                movie.setRating((float) rating);
-                movie.setPosterUrl(poster);
-                movie.setDuration(duration);
-                movie.setGenre(GenreEnum.valueOf(genre));
-                movie.setWatched(watched);
-                movie.setpGuidance(ParentalGuidanceEnum.valueOf(guidance));
-
-                list.add(movie);
+    @Override
+    public void onSelectionChanged(int selectedCount) {
+        this.selectedCount = selectedCount;
+        invalidateOptionsMenu();
+    }
 
+    private void backupDatabase(){
+        Handler handler = new Handler(Looper.getMainLooper());
+        DatabaseManager.databaseWriteExecutor.execute(() -> {
+            try {
+                DatabaseBackup.BackupInfo info = new DatabaseBackup(getApplicationContext())
+                        .backup(DatabaseBackup.defaultBackupFile(getApplicationContext()));
+                Log.d("MainActivityTag", info.toString());
+                handler.post(() -> Toast.makeText(this, "Backup saved", Toast.LENGTH_SHORT).show());
+            } catch (IOException e) {
+                Log.w("MainActivityTag", "Backup failed", e);
+                handler.post(() -> Toast.makeText(this, "Backup failed", Toast.LENGTH_SHORT).show());
             }
+        });
+    }
 
-        } catch (JSONException e) {
-            e.printStackTrace();
+    //the DAO is read when the write is queued, writes made while a restore runs are dropped
+    private void writeMovies(Consumer<MovieDAO> write){
+        MovieDAO dao = movieTable;
+        if(dao == null)
+            return;
+        Context context = getApplicationContext();
+        DatabaseManager.databaseWriteExecutor.execute(() -> {
+            write.accept(dao);
+            //the first write since the last rebuild queues one, behind the writes already waiting
+            if(SimilarityIndex.markStale())
+                DatabaseManager.databaseWriteExecutor.execute(() -> rebuildSimilarityIndex(context));
+        });
+    }
+
+    //the DAO is looked up when it runs, a restore may have replaced the database meanwhile
+    private static void rebuildSimilarityIndex(Context context){
+        try {
+            SimilarityIndex.rebuildIfStale(context, DatabaseManager.getInstance(context).getMovieDao(),
+                    MovieFeedSync.SIMILAR_MOVIES);
+        } catch (IOException e) {
+            Log.w("MainActivityTag", "Similarity index not rebuilt", e);
         }
-        return list;
     }
 
-    private void fetchMovies(){
-        ExecutorService executor = Executors.newSingleThreadExecutor();
+    private void restoreDatabase(){
+        if(movieTable == null)
+            return;
         Handler handler = new Handler(Looper.getMainLooper());
-        executor.execute( () -> {
-
-            HttpManager manager = new HttpManager("https://jsonkeeper.com/b/FLBCO");
-            String result = manager.process();
-            List<Movie> newMovies = parseMovies(result);
-            
-            // SAVE TO DATABASE (Background)
-            for(Movie m : newMovies){
-                databaseManager.getMovieDao().insertMovie(m);
+        Context context = getApplicationContext();
+        //nothing in this activity may touch the old instance once it is closed
+        databaseManager = null;
+        movieTable = null;
+        DatabaseManager.databaseWriteExecutor.execute(() -> {
+            //waits for a sync in progress, none can start until the restore is done
+            SyncScheduler.pause(context);
+            try {
+                DatabaseBackup.BackupInfo info = new DatabaseBackup(context)
+                        .restore(DatabaseBackup.defaultBackupFile(context));
+                Log.d("MainActivityTag", info.toString());
+            } catch (IOException e) {
+                Log.w("MainActivityTag", "Restore failed", e);
+                handler.post(() -> {
+                    Toast.makeText(this, "Restore failed", Toast.LENGTH_SHORT).show();
+                    if(!isDestroyed())
+                        recreate();
+                });
+                return;
+            } finally {
+                SyncScheduler.resume(context);
             }
-            
-            // READ FROM DATABASE (Background) - Get the fresh list including what we just saved
-            List<Movie> allMovies = databaseManager.getMovieDao().getAllMovies();
-
-            handler.post( ()-> {
-                // UPDATE UI (Foreground)
-                movieList.clear();
-                movieList.addAll(allMovies);
-                movieAdapter.notifyDataSetChanged();
-                Toast.makeText(this, "Updated!", Toast.LENGTH_SHORT).show();
+            //the old database instance is closed, the activity starts over on the restored one
+            handler.post(() -> {
+                Toast.makeText(this, "Backup restored", Toast.LENGTH_SHORT).show();
+                if(!isDestroyed())
+                    recreate();
             });
-
+            //queued behind the restore, so it reads the restored rows
+            try {
+                SimilarityIndex.rebuild(context, DatabaseManager.getInstance(context).getMovieDao().getAllMovies(),
+                        MovieFeedSync.SIMILAR_MOVIES);
+            } catch (IOException e) {
+                Log.w("MainActivityTag", "Similarity index not rebuilt", e);
+            }
         });
     }
 
+    //the latest background syncs, newest first
+    private void showSyncLog(){
+        Handler handler = new Handler(Looper.getMainLooper());
+        Context context = getApplicationContext();
+        DatabaseManager.databaseWriteExecutor.execute(() -> {
+            List<SyncLogEntry> entries = DatabaseManager.getInstance(context).getSyncLogDao().getRecent(SYNC_LOG_ROWS);
+            StringBuilder text = new StringBuilder();
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.US);
+            for(SyncLogEntry entry : entries) {
+                text.append(entry.startedAt == null ? "-" : format.format(entry.startedAt))
+                        .append("  ").append(entry.outcome);
+                if(SyncLogEntry.SUCCESS.equals(entry.outcome))
+                    text.append(String.format(Locale.US, "  +%d ~%d -%d",
+                            entry.inserted, entry.updated, entry.deleted));
+                else if(entry.error != null)
+                    text.append("  ").append(entry.error);
+                text.append('\n');
+            }
+            handler.post(() -> {
+                if(isDestroyed())
+                    return;
+                new AlertDialog.Builder(this)
+                        .setTitle("Sync Log")
+                        .setMessage(entries.isEmpty() ? "No syncs yet" : text.toString().trim())
+                        .setPositiveButton(android.R.string.ok, null)
+                        .show();
+            });
+        });
+    }
 
-}
+    //the feed is only read in the background, a launch shows what is stored locally
+    private void scheduleSync(){
+        SyncScheduler.schedule(getApplicationContext());
+        if(movieAdapter.getItemCount() == 0)
+            SyncScheduler.syncOnce(getApplicationContext());
+    }
 
 
+}
@@ -1,19 +1,27 @@
 package ro.ase.ie.g1106_s04.activities;
 
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.util.Patterns;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
 import android.widget.RatingBar;
 import android.widget.SeekBar;
 import android.widget.Spinner;
 import android.widget.Switch;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
@@ -22,29 +30,55 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import ro.ase.ie.g1106_s04.R;
+import ro.ase.ie.g1106_s04.database.DatabaseManager;
+import ro.ase.ie.g1106_s04.database.MovieDAO;
 import ro.ase.ie.g1106_s04.model.GenreEnum;
 import ro.ase.ie.g1106_s04.model.Movie;
 import ro.ase.ie.g1106_s04.model.ParentalGuidanceEnum;
+import ro.ase.ie.g1106_s04.networking.DownloadTask;
+import ro.ase.ie.g1106_s04.networking.HttpStatusException;
+import ro.ase.ie.g1106_s04.networking.PosterCache;
+import ro.ase.ie.g1106_s04.networking.PosterPreflight;
+import ro.ase.ie.g1106_s04.networking.ThumbnailStore;
+import ro.ase.ie.g1106_s04.similarity.SimilarityIndex;
 
 public class MovieActivity extends AppCompatActivity {
+    private static final long POSTER_DEBOUNCE_MS = 500;
 
     private EditText etTitle;
     private EditText etRelease;
     private EditText etBudget;
     private EditText etPoster;
+    private ImageView ivPoster;
     private RatingBar rbRating;
     private SeekBar sbDuration;
     private RadioGroup rgGuidance;
     private Switch swWatched;
     private Button btnMovieAction;
     private Spinner spGenre;
+    private TextView tvSimilar;
+    private LinearLayout llSimilar;
     private Movie movie;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable posterSettled = this::checkPoster;
+    private Future<?> posterCheck;
+    //last poster that passed the pre-flight, and the last one that was refused
+    private PosterPreflight.Result checkedPoster;
+    private String rejectedPosterUrl;
+    private String rejectedPosterMessage;
     SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
 
     @Override
@@ -74,11 +108,10 @@ public class MovieActivity extends AppCompatActivity {
         }
         else if(actionCode == 200)
         {
-            //update an existing movie
+            //update an existing movie, the list only passes its key
             btnMovieAction.setText("Update Movie");
-
-            movie = intent.getParcelableExtra("movie");
-            completeForm(movie);
+            btnMovieAction.setEnabled(false);
+            loadMovie(intent.getStringExtra("movie_title"), new Date(intent.getLongExtra("movie_release", 0)));
         }
         else {
             finish();
@@ -92,33 +125,201 @@ public class MovieActivity extends AppCompatActivity {
         etRelease.setText(sdf.format(movie.getRelease()));
         etRelease.setEnabled(false);
         etPoster.setText(movie.getPosterUrl());
-        spGenre.setSelection(movie.getGenre().ordinal());
+        //the saved poster is checked right away, the detail screen is the only place showing it full-size
+        handler.removeCallbacks(posterSettled);
+        checkPoster();
+        //the feed stores a genre the app does not know as null
+        if(movie.getGenre() != null)
+            spGenre.setSelection(movie.getGenre().ordinal());
         swWatched.setChecked(movie.getWatched());
         sbDuration.setProgress(movie.getDuration());
         rbRating.setRating(movie.getRating());
         for(int i=0; i < rgGuidance.getChildCount(); i++){
             RadioButton childAt = (RadioButton) rgGuidance.getChildAt(i);
-            if (childAt.getText().toString().equalsIgnoreCase(movie.getpGuidance().toString())){
+            if (movie.getPGuidance() != null && childAt.getText().toString().equalsIgnoreCase(movie.getPGuidance().toString())){
                 childAt.setChecked(true);
             }
         }
 
     }
 
+    //runs once the poster field stayed unchanged for POSTER_DEBOUNCE_MS, cancels the previous check
+    private void checkPoster() {
+        if(posterCheck != null)
+            posterCheck.cancel(true);
+        String url = etPoster.getText().toString().trim();
+        if(checkedPoster != null && url.equals(checkedPoster.url))
+            return;
+        if(url.isEmpty() || !Patterns.WEB_URL.matcher(url).matches()) {
+            ivPoster.setVisibility(View.GONE);
+            return;
+        }
+        int previewHeight = ivPoster.getLayoutParams().height;
+        int previewWidth = getResources().getDisplayMetrics().widthPixels;
+        ThumbnailStore store = ThumbnailStore.getInstance(getApplicationContext());
+        posterCheck = DownloadTask.posterExecutor.submit(() -> {
+            try {
+                PosterPreflight.Result result = PosterPreflight.run(store, url, previewWidth, previewHeight);
+                handler.post(() -> onPosterChecked(url, result, null));
+            } catch (IOException e) {
+                if(e instanceof InterruptedIOException && Thread.currentThread().isInterrupted())
+                    return;
+                handler.post(() -> onPosterChecked(url, null, e));
+            }
+        });
+    }
+
+    private void onPosterChecked(String url, PosterPreflight.Result result, IOException error) {
+        //the field may have changed while the check was running
+        if(isFinishing() || !url.equals(etPoster.getText().toString().trim()))
+            return;
+        if(result != null) {
+            checkedPoster = result;
+            rejectedPosterUrl = null;
+            rejectedPosterMessage = null;
+            etPoster.setError(null);
+            ivPoster.setImageBitmap(result.preview);
+            ivPoster.setVisibility(View.VISIBLE);
+            return;
+        }
+        ivPoster.setVisibility(View.GONE);
+        //only a definite answer blocks saving, being offline or throttled does not
+        if(isDefiniteRejection(error)) {
+            rejectedPosterUrl = url;
+            rejectedPosterMessage = error.getMessage();
+            etPoster.setError(rejectedPosterMessage);
+        } else {
+            Log.w("MovieActivityTag", "Poster pre-flight failed: " + error.getMessage());
+        }
+    }
+
+    //the poster itself is bad: too big, not an image, or a 4xx other than timeout / rate limit
+    private static boolean isDefiniteRejection(IOException error) {
+        if(error instanceof PosterPreflight.RejectedException)
+            return true;
+        if(!(error instanceof HttpStatusException))
+            return false;
+        int code = ((HttpStatusException) error).getStatusCode();
+        return code >= 400 && code < 500 && code != 408 && code != 429;
+    }
+
+    //the list looks thumbnails up by the same key, so the new row renders without a download
+    private void warmPosterCache(Movie movie) {
+        if(checkedPoster == null || !checkedPoster.url.equals(movie.getPosterUrl()))
+            return;
+        String key = ThumbnailStore.keyFor(movie);
+        Bitmap thumbnail = checkedPoster.thumbnail;
+        PosterCache.put(key, thumbnail);
+        ThumbnailStore store = ThumbnailStore.getInstance(getApplicationContext());
+        DownloadTask.posterExecutor.execute(() -> {
+            try {
+                store.store(key, thumbnail);
+            } catch (IOException e) {
+                Log.w("MovieActivityTag", "Thumbnail not stored: " + e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        handler.removeCallbacks(posterSettled);
+        if(posterCheck != null)
+            posterCheck.cancel(true);
+        super.onDestroy();
+    }
+
+    private void loadMovie(String title, Date release) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Handler handler = new Handler(Looper.getMainLooper());
+        executor.execute(() -> {
+            Movie loaded = DatabaseManager.getInstance(getApplicationContext()).getMovieDao().getMovie(title, release);
+            handler.post(() -> {
+                if(isFinishing())
+                    return;
+                if(loaded == null) {
+                    //deleted while the screen was opening
+                    Toast.makeText(this, "Movie no longer exists", Toast.LENGTH_SHORT).show();
+                    finish();
+                    return;
+                }
+                movie = loaded;
+                completeForm(movie);
+                btnMovieAction.setEnabled(true);
+                loadSimilarMovies(movie);
+            });
+        });
+        executor.shutdown();
+    }
+
+    private void loadSimilarMovies(Movie movie) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Handler handler = new Handler(Looper.getMainLooper());
+        executor.execute(() -> {
+            //the index is built by the feed sync, a missing one just hides the strip
+            List<SimilarityIndex.Neighbour> similar = new ArrayList<>();
+            try {
+                MovieDAO dao = DatabaseManager.getInstance(getApplicationContext()).getMovieDao();
+                for (SimilarityIndex.Neighbour neighbour : SimilarityIndex.load(getApplicationContext()).lookup(movie)) {
+                    //the index may predate a delete that is not rebuilt into it yet
+                    if (dao.getMovie(neighbour.title, new Date(neighbour.releaseMillis)) != null)
+                        similar.add(neighbour);
+                }
+            } catch (IOException e) {
+                Log.w("MovieActivityTag", "Similar movies unavailable", e);
+                return;
+            }
+            handler.post(() -> showSimilarMovies(similar));
+        });
+        executor.shutdown();
+    }
+
+    private void showSimilarMovies(List<SimilarityIndex.Neighbour> similar) {
+        if (isFinishing() || similar.isEmpty())
+            return;
+        llSimilar.removeAllViews();
+        int padding = (int) (8 * getResources().getDisplayMetrics().density);
+        for (SimilarityIndex.Neighbour neighbour : similar) {
+            TextView tvNeighbour = new TextView(this);
+            tvNeighbour.setText(neighbour.title + " (" + sdf.format(new Date(neighbour.releaseMillis)) + ")");
+            tvNeighbour.setPadding(padding, padding, padding, padding);
+            llSimilar.addView(tvNeighbour);
+        }
+        tvSimilar.setVisibility(View.VISIBLE);
+    }
+
     private void initializeControls() {
         etTitle = findViewById(R.id.etTitle);
         etBudget = findViewById(R.id.etBudget);
         etRelease = findViewById(R.id.etRelease);
         etPoster = findViewById(R.id.etPoster);
+        ivPoster = findViewById(R.id.ivPoster);
         spGenre = findViewById(R.id.spGenre);
         sbDuration = findViewById(R.id.sbDuration);
         rgGuidance = findViewById(R.id.rgApproval);
         swWatched = findViewById(R.id.swWatched);
         rbRating = findViewById(R.id.rbRating);
         btnMovieAction = findViewById(R.id.btnMovieAction);
+        tvSimilar = findViewById(R.id.tvSimilar);
+        llSimilar = findViewById(R.id.llSimilar);
     }
 
     private void initializeEvents() {
+        etPoster.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                handler.removeCallbacks(posterSettled);
+                handler.postDelayed(posterSettled, POSTER_DEBOUNCE_MS);
+            }
+        });
+
         btnMovieAction.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
@@ -126,6 +327,7 @@ public class MovieActivity extends AppCompatActivity {
                 ValidationResult result = validateFormAndBuildMovie();
 
                 if(result.validForm == true) {
+                    warmPosterCache(movie);
 
                     Intent intent = new Intent();
                     //set the movie as payload for this intent
@@ -208,6 +410,8 @@ public class MovieActivity extends AppCompatActivity {
         else {
             if(!Patterns.WEB_URL.matcher(poster).matches())
                 return ValidationResult.error(Field.POSTER, "Poster URL has incorrect format!");
+            if(poster.equals(rejectedPosterUrl))
+                return ValidationResult.error(Field.POSTER, rejectedPosterMessage);
         }
 
 
@@ -226,7 +430,7 @@ public class MovieActivity extends AppCompatActivity {
         movie.setDuration(duration);
         movie.setGenre(GenreEnum.valueOf(spGenre.getSelectedItem().toString()));
         movie.setWatched(swWatched.isChecked());
-        movie.setpGuidance(ParentalGuidanceEnum.valueOf(guidance));
+        movie.setPGuidance(ParentalGuidanceEnum.valueOf(guidance));
 
         Log.i("MovieActivityTag", movie.toString());
 
@@ -0,0 +1,64 @@
+package ro.ase.ie.g1106_s04.activities;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+/**
+ * Trace sections for the MainActivity startup stages plus the time-to-first-row metric,
+ * which is logged and kept in the startup_metrics preferences for instrumentation tests.
+ */
+public class StartupTracer {
+    public static final String PREFERENCES = "startup_metrics";
+    public static final String TIME_TO_FIRST_ROW = "time_to_first_row_ms";
+    public static final String TIME_TO_FIRST_ROW_FROM_CREATE = "time_to_first_row_from_create_ms";
+    private static final String TAG = "StartupTracer";
+
+    private final Context context;
+    private final long createdAt = SystemClock.elapsedRealtime();
+    private boolean firstRowRecorded;
+
+    public StartupTracer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public void beginStage(String stage) {
+        Trace.beginSection("Startup." + stage);
+    }
+
+    public void endStage() {
+        Trace.endSection();
+    }
+
+    public void markFirstRow() {
+        if (firstRowRecorded)
+            return;
+        firstRowRecorded = true;
+        long now = SystemClock.elapsedRealtime();
+        long fromProcessStart = now - Process.getStartElapsedRealtime();
+        long fromCreate = now - createdAt;
+        Log.i(TAG, TIME_TO_FIRST_ROW + "=" + fromProcessStart + " " + TIME_TO_FIRST_ROW_FROM_CREATE + "=" + fromCreate);
+        context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).edit()
+                .putLong(TIME_TO_FIRST_ROW, fromProcessStart)
+                .putLong(TIME_TO_FIRST_ROW_FROM_CREATE, fromCreate)
+                .apply();
+    }
+
+    public boolean isFirstRowRecorded() {
+        return firstRowRecorded;
+    }
+
+    public static long getTimeToFirstRow(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        return preferences.getLong(TIME_TO_FIRST_ROW, -1);
+    }
+
+    //from MainActivity.onCreate, leaves out process and instrumentation startup
+    public static long getTimeToFirstRowFromCreate(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        return preferences.getLong(TIME_TO_FIRST_ROW_FROM_CREATE, -1);
+    }
+}
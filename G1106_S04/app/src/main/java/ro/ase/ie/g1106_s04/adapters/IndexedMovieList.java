@@ -0,0 +1,315 @@
+package ro.ase.ie.g1106_s04.adapters;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import ro.ase.ie.g1106_s04.database.MovieKey;
+import ro.ase.ie.g1106_s04.database.MovieRow;
+import ro.ase.ie.g1106_s04.model.CompactCatalog;
+import ro.ase.ie.g1106_s04.model.MovieView;
+
+/**
+ * Backing list of MovieAdapter: the rows live in a CompactCatalog and a key -> position map
+ * answers lookups in O(1). Every change is reported to the callback as an exact range.
+ *
+ * The map always holds exactly the current keys; positions are exact below validPrefix and
+ * re-indexed lazily past it, so appends and in-place edits never walk the list.
+ */
+public class IndexedMovieList {
+    //above this many out-of-order rows a snapshot reports them as removed and inserted
+    private static final int MAX_MOVES = 16;
+
+    private final ListUpdateCallback callback;
+    private CompactCatalog catalog = CompactCatalog.fromRows(new ArrayList<>());
+    private final HashMap<String, Integer> positions = new HashMap<>();
+    private boolean indexBuilt = true;
+    private int validPrefix;
+
+    public IndexedMovieList(ListUpdateCallback callback) {
+        this.callback = callback;
+    }
+
+    public static String keyOf(MovieKey key) {
+        return MovieKey.asString(key.title, key.release);
+    }
+
+    public int size() {
+        return catalog.size();
+    }
+
+    public MovieView view(int position) {
+        return catalog.view(position);
+    }
+
+    public int indexOf(String key) {
+        ensureIndex();
+        Integer position = positions.get(key);
+        if (position == null)
+            return -1;
+        if (position < validPrefix)
+            return position;
+        reindex();
+        return positions.get(key);
+    }
+
+    //after reset the map is rebuilt on first use
+    private void ensureIndex() {
+        if (indexBuilt)
+            return;
+        positions.clear();
+        validPrefix = 0;
+        reindex();
+        indexBuilt = true;
+    }
+
+    private void reindex() {
+        for (int i = validPrefix; i < catalog.size(); i++) {
+            positions.put(catalog.getKey(i), i);
+        }
+        validPrefix = catalog.size();
+    }
+
+    //edits the row in place when the key is known, appends it otherwise
+    public int upsert(MovieRow row) {
+        int position = indexOf(keyOf(row));
+        if (position >= 0) {
+            catalog.set(position, row);
+            callback.onChanged(position, 1, null);
+            return position;
+        }
+        insert(catalog.size(), row);
+        return catalog.size() - 1;
+    }
+
+    public void insert(int position, MovieRow row) {
+        ensureIndex();
+        int oldSize = catalog.size();
+        catalog.insert(position, row);
+        positions.put(keyOf(row), position);
+        if (position == oldSize && validPrefix == oldSize)
+            validPrefix = oldSize + 1;
+        else
+            validPrefix = Math.min(validPrefix, position);
+        callback.onInserted(position, 1);
+    }
+
+    public void remove(int position) {
+        ensureIndex();
+        positions.remove(catalog.getKey(position));
+        catalog.remove(position);
+        validPrefix = Math.min(validPrefix, position);
+        callback.onRemoved(position, 1);
+    }
+
+    public boolean removeByKey(String key) {
+        int position = indexOf(key);
+        if (position < 0)
+            return false;
+        remove(position);
+        return true;
+    }
+
+    public void move(int from, int to) {
+        String key = catalog.getKey(from);
+        ensureIndex();
+        catalog.move(from, to);
+        positions.put(key, to);
+        validPrefix = Math.min(validPrefix, Math.min(from, to));
+        callback.onMoved(from, to);
+    }
+
+    //replaces the rows without reporting anything, the caller refreshes the whole list
+    public void reset(CompactCatalog next) {
+        catalog = next;
+        indexBuilt = false;
+    }
+
+    /**
+     * Replaces the rows with a new snapshot. The common prefix and suffix (by key) stay and only
+     * their changed rows are reported. In the differing middle the rows that kept their relative
+     * order (a longest increasing run of new positions) stay put, the other kept rows are moved,
+     * and rows that left or arrived are reported as removed / inserted ranges, so the callback
+     * always sees the exact edits. Past MAX_MOVES the out-of-order rows are reported as removed
+     * and inserted instead, as every move costs a pass over the middle.
+     */
+    public void submit(CompactCatalog next) {
+        CompactCatalog previous = catalog;
+        int oldSize = previous.size();
+        int newSize = next.size();
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize && previous.sameKey(prefix, next, prefix))
+            prefix++;
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && previous.sameKey(oldSize - 1 - suffix, next, newSize - 1 - suffix))
+            suffix++;
+        int oldMiddle = oldSize - prefix - suffix;
+        int newMiddle = newSize - prefix - suffix;
+
+        catalog = next;
+
+        dispatchChanges(previous, next, 0, 0, prefix);
+        if (oldMiddle > 0 || newMiddle > 0)
+            dispatchMiddle(previous, next, prefix, oldMiddle, newMiddle);
+        dispatchChanges(previous, next, oldSize - suffix, newSize - suffix, suffix);
+
+        //the middle was re-indexed by dispatchMiddle and the prefix did not move. Stale positions
+        //(the suffix after a size change, or past the old validPrefix) must stay past validPrefix
+        if (oldSize != newSize || validPrefix < prefix + oldMiddle)
+            validPrefix = Math.min(validPrefix, prefix + Math.min(oldMiddle, newMiddle));
+    }
+
+    private void dispatchMiddle(CompactCatalog previous, CompactCatalog next, int prefix, int oldMiddle, int newMiddle) {
+        HashMap<String, Integer> newIndex = new HashMap<>();
+        for (int j = 0; j < newMiddle; j++) {
+            newIndex.put(next.getKey(prefix + j), j);
+        }
+        //target of every old row in the middle, -1 when it left
+        int[] target = new int[oldMiddle];
+        for (int i = 0; i < oldMiddle; i++) {
+            String key = previous.getKey(prefix + i);
+            Integer j = newIndex.get(key);
+            target[i] = j == null ? -1 : j;
+            if (j == null && indexBuilt)
+                positions.remove(key);
+        }
+        if (indexBuilt) {
+            for (Map.Entry<String, Integer> entry : newIndex.entrySet())
+                positions.put(entry.getKey(), prefix + entry.getValue());
+        }
+        boolean[] inOrder = longestIncreasing(target);
+        int outOfOrder = 0;
+        for (int i = 0; i < oldMiddle; i++) {
+            if (target[i] >= 0 && !inOrder[i])
+                outOfOrder++;
+        }
+        boolean moveRows = outOfOrder <= MAX_MOVES;
+
+        //source row of every new row in the middle, -1 when it is reported as inserted
+        int[] source = new int[newMiddle];
+        Arrays.fill(source, -1);
+        boolean[] removed = new boolean[oldMiddle];
+        for (int i = 0; i < oldMiddle; i++) {
+            removed[i] = target[i] < 0 || (!inOrder[i] && !moveRows);
+            if (!removed[i])
+                source[target[i]] = i;
+        }
+
+        //from the back, so the positions in front stay valid
+        int i = oldMiddle - 1;
+        while (i >= 0) {
+            if (!removed[i]) {
+                i--;
+                continue;
+            }
+            int end = i;
+            while (i >= 0 && removed[i])
+                i--;
+            callback.onRemoved(prefix + i + 1, end - i);
+        }
+
+        if (moveRows && outOfOrder > 0) {
+            //targets of the rows left, in their current order
+            ArrayList<Integer> current = new ArrayList<>();
+            boolean[] placed = new boolean[newMiddle];
+            for (int k = 0; k < oldMiddle; k++) {
+                if (removed[k])
+                    continue;
+                current.add(target[k]);
+                placed[target[k]] = inOrder[k];
+            }
+            for (int j = 0; j < newMiddle; j++) {
+                if (source[j] < 0 || placed[j])
+                    continue;
+                int from = current.indexOf(j);
+                current.remove(from);
+                //right after the closest placed row that comes before it
+                int to = 0;
+                for (int k = j - 1; k >= 0; k--) {
+                    if (placed[k]) {
+                        to = current.indexOf(k) + 1;
+                        break;
+                    }
+                }
+                current.add(to, j);
+                placed[j] = true;
+                callback.onMoved(prefix + from, prefix + to);
+            }
+        }
+
+        //in increasing order, every row before the range already sits at its final position
+        int j = 0;
+        while (j < newMiddle) {
+            if (source[j] >= 0) {
+                j++;
+                continue;
+            }
+            int start = j;
+            while (j < newMiddle && source[j] < 0)
+                j++;
+            callback.onInserted(prefix + start, j - start);
+        }
+
+        int rangeStart = -1;
+        for (j = 0; j <= newMiddle; j++) {
+            boolean changed = j < newMiddle && source[j] >= 0
+                    && !previous.sameContent(prefix + source[j], next, prefix + j);
+            if (changed && rangeStart < 0) {
+                rangeStart = j;
+            } else if (!changed && rangeStart >= 0) {
+                callback.onChanged(prefix + rangeStart, j - rangeStart, null);
+                rangeStart = -1;
+            }
+        }
+    }
+
+    //marks a longest strictly increasing run of the non-negative values, in O(n log n)
+    private static boolean[] longestIncreasing(int[] values) {
+        int n = values.length;
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            if (values[i] < 0)
+                continue;
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i])
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length)
+                length++;
+        }
+        boolean[] marked = new boolean[n];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            marked[i] = true;
+        }
+        return marked;
+    }
+
+    //reports rows whose content differs, coalesced into ranges of the new positions
+    private void dispatchChanges(CompactCatalog previous, CompactCatalog next, int oldStart, int newStart, int count) {
+        int rangeStart = -1;
+        for (int i = 0; i < count; i++) {
+            boolean changed = !previous.sameContent(oldStart + i, next, newStart + i);
+            if (changed && rangeStart < 0) {
+                rangeStart = i;
+            } else if (!changed && rangeStart >= 0) {
+                callback.onChanged(newStart + rangeStart, i - rangeStart, null);
+                rangeStart = -1;
+            }
+        }
+        if (rangeStart >= 0)
+            callback.onChanged(newStart + rangeStart, count - rangeStart, null);
+    }
+}
@@ -5,28 +5,93 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.RadioGroup;
+import android.widget.RatingBar;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
-import ro.ase.ie.g1106_s04.networking.DownloadTask;
 import ro.ase.ie.g1106_s04.R;
 import ro.ase.ie.g1106_s04.activities.IMovieEventListener;
 import ro.ase.ie.g1106_s04.activities.MainActivity;
+import ro.ase.ie.g1106_s04.database.MovieKey;
+import ro.ase.ie.g1106_s04.database.MovieRow;
+import ro.ase.ie.g1106_s04.model.CompactCatalog;
 import ro.ase.ie.g1106_s04.model.Movie;
+import ro.ase.ie.g1106_s04.model.MovieView;
+import ro.ase.ie.g1106_s04.networking.ThumbnailStore;
 
 public class MovieAdapter extends RecyclerView.Adapter<MovieHolder> {
+    //rows drawn in the first frame, before the database has answered
+    private static final int PLACEHOLDER_ROWS = 6;
     private Context context;
-    private ArrayList<Movie> movieArrayList;
-    private HashMap<Movie,Integer> options;
+    private boolean loaded;
+    //compact columns holding only what a row shows, MovieActivity loads the full movie by key
+    private IndexedMovieList movies;
+    private HashMap<String,Integer> options;
+    private HashMap<String,MovieKey> selectedMovies;
 
-    public MovieAdapter(Context context, ArrayList<Movie> movieArrayList) {
+    public MovieAdapter(Context context) {
         this.context = context;
-        this.movieArrayList = movieArrayList;
+        this.movies = new IndexedMovieList(new AdapterListUpdateCallback(this));
         this.options = new HashMap<>();
+        this.selectedMovies = new HashMap<>();
+    }
+
+    public void setMovies(CompactCatalog catalog) {
+        if(!loaded) {
+            //placeholders are replaced wholesale, later snapshots only report what changed
+            loaded = true;
+            movies.reset(catalog);
+            notifyDataSetChanged();
+        }
+        else
+            movies.submit(catalog);
+    }
+
+    public MovieKey getMovieKey(int position) {
+        MovieView movie = movies.view(position);
+        return new MovieKey(movie.getTitle(), movie.getRelease());
+    }
+
+    //applied right away, the database write confirms it through the next snapshot
+    public void upsertMovie(Movie movie) {
+        if(loaded)
+            movies.upsert(MovieRow.of(movie));
+    }
+
+    public void removeMovie(MovieKey key) {
+        if(!loaded)
+            return;
+        movies.removeByKey(IndexedMovieList.keyOf(key));
+        if(selectedMovies.remove(IndexedMovieList.keyOf(key)) != null)
+            ((IMovieEventListener) context).onSelectionChanged(selectedMovies.size());
+    }
+
+    public List<MovieKey> getSelectedMovies() {
+        return new ArrayList<>(selectedMovies.values());
+    }
+
+    public void clearSelection() {
+        for(String key : selectedMovies.keySet()) {
+            int position = movies.indexOf(key);
+            if(position >= 0)
+                notifyItemChanged(position);
+        }
+        selectedMovies.clear();
+        ((IMovieEventListener) context).onSelectionChanged(0);
+    }
+
+    private void toggleSelection(int position) {
+        MovieView movie = movies.view(position);
+        if(selectedMovies.remove(movie.getKey()) == null)
+            selectedMovies.put(movie.getKey(), new MovieKey(movie.getTitle(), movie.getRelease()));
+        notifyItemChanged(position);
+        ((IMovieEventListener) context).onSelectionChanged(selectedMovies.size());
     }
 
     @NonNull
@@ -37,22 +102,64 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieHolder> {
         return new MovieHolder(itemView);
     }
 
+    private void bindPlaceholder(@NonNull MovieHolder holder) {
+        holder.itemView.setAlpha(0.4f);
+        holder.itemView.setEnabled(false);
+        holder.itemView.setOnClickListener(null);
+        holder.itemView.setOnLongClickListener(null);
+        holder.movieTitle.setText("Loading…");
+        holder.movieRelease.setText("");
+        holder.movieRating.setOnRatingBarChangeListener(null);
+        holder.movieRating.setRating(0f);
+        holder.movieDelete.setOnClickListener(null);
+        holder.moviePoster.setTag(null);
+        holder.moviePoster.setImageResource(android.R.drawable.alert_dark_frame);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull MovieHolder holder, int position) {
-        Movie movie=movieArrayList.get(position);
+        if(!loaded) {
+            bindPlaceholder(holder);
+            return;
+        }
+        holder.itemView.setAlpha(1f);
+        holder.itemView.setEnabled(true);
+        MovieView movie=movies.view(position);
+        String key = movie.getKey();
         holder.movieTitle.setText(movie.getTitle());
-        holder.movieRating.setRating(movie.getRating());
+        holder.movieRating.setOnRatingBarChangeListener(null);
+        holder.movieRating.setRating(movie.hasRating() ? movie.getRating() : 0f);
         holder.movieRelease.setText(movie.getRelease().toString());
         holder.movieOptions.setOnCheckedChangeListener(null);
+        holder.itemView.setActivated(selectedMovies.containsKey(key));
         holder.itemView.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
                 IMovieEventListener listener = (IMovieEventListener)context;
-                listener.onMovieClick(holder.getBindingAdapterPosition());
+                if(!selectedMovies.isEmpty())
+                    toggleSelection(holder.getBindingAdapterPosition());
+                else
+                    listener.onMovieClick(holder.getBindingAdapterPosition());
 
             }
         });
-        Integer rbOption = options.get(movie);
+        holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View view) {
+                toggleSelection(holder.getBindingAdapterPosition());
+                return true;
+            }
+        });
+        holder.movieRating.setOnRatingBarChangeListener(new RatingBar.OnRatingBarChangeListener() {
+            @Override
+            public void onRatingChanged(RatingBar ratingBar, float rating, boolean fromUser) {
+                if(fromUser) {
+                    IMovieEventListener listener = (IMovieEventListener) context;
+                    listener.onMovieRatingChanged(holder.getBindingAdapterPosition(), rating);
+                }
+            }
+        });
+        Integer rbOption = options.get(key);
         holder.movieOptions.check(rbOption==null?-1:rbOption);
 
         holder.movieDelete.setOnClickListener(new View.OnClickListener() {
@@ -67,9 +174,9 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieHolder> {
             public void onCheckedChanged(@NonNull RadioGroup radioGroup, int i) {
                 int value=radioGroup.getCheckedRadioButtonId();
                 if(value==R.id.rbPersist)
-                    options.put(movie,R.id.rbPersist);
+                    options.put(key,R.id.rbPersist);
                 else
-                    options.put(movie,R.id.rbExport);
+                    options.put(key,R.id.rbExport);
             }
         });
 
@@ -81,14 +188,13 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieHolder> {
             }
         });
 
-        DownloadTask downloadTask = new DownloadTask(movie.getPosterUrl(),holder.moviePoster);
-        Thread thread = new Thread(downloadTask);
-        thread.start();
+        //thumbnails only, full-size posters are loaded by the detail screen
+        ThumbnailStore.getInstance(context).bind(movie.getThumbnailKey(), movie.getPosterUrl(), holder.moviePoster);
 
     }
 
     @Override
     public int getItemCount() {
-        return movieArrayList.size();
+        return loaded ? movies.size() : PLACEHOLDER_ROWS;
     }
 }
@@ -0,0 +1,233 @@
+package ro.ase.ie.g1106_s04.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * File-level backup of the Room database. A backup is a consistent snapshot of the database file,
+ * gzipped behind a small header with the schema version and the SHA-256 of the snapshot.
+ * A restore checks the snapshot and then, under the lock getInstance uses, checkpoints and closes
+ * the database and renames the snapshot in its place. Both run on DatabaseManager.databaseWriteExecutor,
+ * so the app's own writes wait for them; callers pause the background sync around a restore.
+ */
+public class DatabaseBackup {
+    private static final int MAGIC = 0x4D564442;
+    private static final int FORMAT = 1;
+    //magic, format, schema version and snapshot length come before the checksum
+    private static final int DIGEST_OFFSET = 4 + 4 + 4 + 8;
+    private static final int DIGEST_BYTES = 32;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHECKPOINT_ATTEMPTS = 3;
+    private final Context context;
+
+    public static class BackupInfo {
+        public final int schemaVersion;
+        public final long databaseBytes;
+        public final long backupBytes;
+
+        BackupInfo(int schemaVersion, long databaseBytes, long backupBytes) {
+            this.schemaVersion = schemaVersion;
+            this.databaseBytes = databaseBytes;
+            this.backupBytes = backupBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "BackupInfo{" + "schemaVersion=" + schemaVersion + ", databaseBytes=" + databaseBytes +
+                    ", backupBytes=" + backupBytes + '}';
+        }
+    }
+
+    public DatabaseBackup(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static File defaultBackupFile(Context context) {
+        return new File(new File(context.getFilesDir(), "backups"), "database.bak");
+    }
+
+    public BackupInfo backup(File target) throws IOException {
+        SupportSQLiteDatabase db = DatabaseManager.getInstance(context).getOpenHelper().getWritableDatabase();
+        int schemaVersion = db.getVersion();
+        File directory = target.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create " + directory);
+        File snapshot = new File(directory, target.getName() + ".snapshot");
+        File temp = new File(directory, target.getName() + ".tmp");
+        try {
+            snapshot.delete();
+            takeSnapshot(db, snapshot);
+            long databaseBytes = snapshot.length();
+
+            //one pass over the snapshot: the checksum is computed while compressing and patched in after
+            MessageDigest digest = newDigest();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(schemaVersion);
+                out.writeLong(databaseBytes);
+                out.write(new byte[DIGEST_BYTES]);
+                //the fastest deflate level, a backup should cost about a file copy
+                GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE) {
+                    {
+                        def.setLevel(Deflater.BEST_SPEED);
+                    }
+                };
+                try (InputStream in = new DigestInputStream(new FileInputStream(snapshot), digest)) {
+                    copy(in, gzip);
+                }
+                gzip.finish();
+            }
+            try (RandomAccessFile header = new RandomAccessFile(temp, "rw")) {
+                header.seek(DIGEST_OFFSET);
+                header.write(digest.digest());
+            }
+            if (!temp.renameTo(target))
+                throw new IOException("Could not replace " + target);
+            return new BackupInfo(schemaVersion, databaseBytes, target.length());
+        } finally {
+            snapshot.delete();
+            temp.delete();
+        }
+    }
+
+    //VACUUM INTO needs SQLite 3.27 (API 30), older devices checkpoint and copy the file
+    private void takeSnapshot(SupportSQLiteDatabase db, File snapshot) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            db.execSQL("VACUUM INTO ?", new Object[]{snapshot.getAbsolutePath()});
+            return;
+        }
+        File databaseFile = new File(db.getPath());
+        File walFile = new File(db.getPath() + "-wal");
+        for (int i = 0; i < CHECKPOINT_ATTEMPTS; i++) {
+            try (Cursor cursor = db.query("PRAGMA wal_checkpoint(TRUNCATE)")) {
+                if (!cursor.moveToFirst() || cursor.getInt(0) != 0)
+                    continue;
+            }
+            //the transaction keeps other writers out, so the file cannot change while it is copied
+            db.beginTransaction();
+            try {
+                if (walFile.length() == 0) {
+                    try (InputStream in = new FileInputStream(databaseFile);
+                         OutputStream out = new FileOutputStream(snapshot)) {
+                        copy(in, out);
+                    }
+                    return;
+                }
+            } finally {
+                db.endTransaction();
+            }
+        }
+        throw new IOException("Database is busy, could not take a snapshot");
+    }
+
+    public BackupInfo restore(File source) throws IOException {
+        File temp = new File(context.getDatabasePath(DatabaseManager.databaseName).getPath() + ".restore");
+        try {
+            int schemaVersion;
+            long databaseBytes;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(source)))) {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT)
+                    throw new IOException("Not a database backup: " + source);
+                schemaVersion = in.readInt();
+                databaseBytes = in.readLong();
+                byte[] expected = new byte[DIGEST_BYTES];
+                in.readFully(expected);
+                int currentVersion = DatabaseManager.getInstance(context).getOpenHelper().getReadableDatabase().getVersion();
+                if (schemaVersion > currentVersion)
+                    throw new IOException("Backup schema " + schemaVersion + " is newer than " + currentVersion);
+
+                MessageDigest digest = newDigest();
+                try (InputStream gzip = new DigestInputStream(new GZIPInputStream(in, BUFFER_SIZE), digest);
+                     OutputStream out = new FileOutputStream(temp)) {
+                    copy(gzip, out);
+                }
+                if (temp.length() != databaseBytes || !Arrays.equals(expected, digest.digest()))
+                    throw new IOException("Backup checksum mismatch: " + source);
+            }
+            checkDatabase(temp, schemaVersion);
+
+            //nothing is touched before this point, a bad backup leaves the current database as it was
+            DatabaseManager.swapDatabase(context, databaseFile -> replace(databaseFile, temp));
+            return new BackupInfo(schemaVersion, databaseBytes, source.length());
+        } finally {
+            temp.delete();
+        }
+    }
+
+    //the current files are renamed away first and only deleted once the restored file is in place
+    private static void replace(File databaseFile, File restored) throws IOException {
+        String path = databaseFile.getPath();
+        File[] current = {databaseFile, new File(path + "-wal"), new File(path + "-shm")};
+        File[] previous = {new File(path + ".old"), new File(path + ".old-wal"), new File(path + ".old-shm")};
+        for (File file : previous) {
+            file.delete();
+        }
+        int moved = 0;
+        try {
+            for (; moved < current.length; moved++) {
+                if (current[moved].exists() && !current[moved].renameTo(previous[moved]))
+                    throw new IOException("Could not move " + current[moved] + " aside");
+            }
+            if (!restored.renameTo(databaseFile))
+                throw new IOException("Could not replace " + databaseFile);
+        } catch (IOException e) {
+            for (int i = 0; i < moved; i++) {
+                previous[i].renameTo(current[i]);
+            }
+            throw e;
+        }
+        for (File file : previous) {
+            file.delete();
+        }
+    }
+
+    private static void checkDatabase(File file, int schemaVersion) throws IOException {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            if (db.getVersion() != schemaVersion)
+                throw new IOException("Backup schema version does not match its header");
+        } finally {
+            db.close();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+}
@@ -1,19 +1,80 @@
 package ro.ase.ie.g1106_s04.database;
 
 import android.content.Context;
+import android.database.Cursor;
 
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ro.ase.ie.g1106_s04.model.CompactCatalog;
 import ro.ase.ie.g1106_s04.model.Movie;
+import ro.ase.ie.g1106_s04.model.SyncLogEntry;
 
-@Database(entities = {Movie.class}, version = 1, exportSchema = false)
+@Database(entities = {Movie.class, SyncLogEntry.class}, version = 6, exportSchema = false)
 @TypeConverters({DateTimeConverter.class})
 public abstract class DatabaseManager extends RoomDatabase{
-    private final static String databaseName = "database";
+    final static String databaseName = "database";
     private static volatile DatabaseManager databaseInstance;
+    public static final ExecutorService databaseWriteExecutor = Executors.newSingleThreadExecutor();
+
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE MovieTable ADD COLUMN contentHash INTEGER");
+        }
+    };
+
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_MovieTable_movieTitle`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_MovieTable_movieTitle_release` " +
+                    "ON `MovieTable` (`movieTitle`, `release`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_MovieTable_rating_release_movieTitle` " +
+                    "ON `MovieTable` (`rating`, `release`, `movieTitle`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_MovieTable_budget_release_movieTitle` " +
+                    "ON `MovieTable` (`budget`, `release`, `movieTitle`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_MovieTable_duration_release_movieTitle` " +
+                    "ON `MovieTable` (`duration`, `release`, `movieTitle`)");
+        }
+    };
+
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE MovieTable ADD COLUMN pGuidance TEXT");
+        }
+    };
+
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `SyncLog` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`startedAt` INTEGER, `durationMillis` INTEGER NOT NULL, `source` TEXT, `outcome` TEXT, " +
+                    "`inserted` INTEGER NOT NULL, `updated` INTEGER NOT NULL, `deleted` INTEGER NOT NULL, " +
+                    "`unchanged` INTEGER NOT NULL, `error` TEXT)");
+        }
+    };
+
+    //release leads the primary key, which already serves every lookup by release
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_MovieTable_release`");
+        }
+    };
 
     public static DatabaseManager getInstance(Context context){
         if(databaseInstance == null){
@@ -22,11 +83,48 @@ public abstract class DatabaseManager extends RoomDatabase{
                     databaseInstance = Room.databaseBuilder(context,
                             DatabaseManager.class, databaseName)
                             .allowMainThreadQueries()
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6)
                             .build();
                 }
             }
         }
         return databaseInstance;
     }
+
+    /**
+     * The movie list for a row query (see MovieSortOrder.rowQuery), re-read whenever MovieTable
+     * changes. The cursor is copied straight into a CompactCatalog, so no List of rows is kept
+     * around as the value of this or any downstream LiveData.
+     */
+    public LiveData<CompactCatalog> observeCatalog(SupportSQLiteQuery rowQuery) {
+        return getInvalidationTracker().createLiveData(new String[]{"MovieTable"}, false, () -> {
+            try (Cursor cursor = query(rowQuery)) {
+                return CompactCatalog.fromCursor(cursor);
+            }
+        });
+    }
+
+    interface FileSwap {
+        void run(File databaseFile) throws IOException;
+    }
+
+    /**
+     * Checkpoints and closes the open database, then runs `swap` on its file. The whole swap holds
+     * the lock getInstance opens the database under, so no one can reopen it half way through.
+     */
+    static void swapDatabase(Context context, FileSwap swap) throws IOException {
+        synchronized (DatabaseManager.class){
+            if(databaseInstance != null){
+                //the WAL is folded into the main file, so the file on its own is the whole database
+                try(Cursor cursor = databaseInstance.query("PRAGMA wal_checkpoint(TRUNCATE)", null)){
+                    cursor.moveToFirst();
+                }
+                databaseInstance.close();
+                databaseInstance = null;
+            }
+            swap.run(context.getDatabasePath(databaseName));
+        }
+    }
     public abstract MovieDAO getMovieDao();
+    public abstract SyncLogDAO getSyncLogDao();
 }
@@ -3,6 +3,7 @@ package ro.ase.ie.g1106_s04.database;
 import androidx.room.TypeConverter;
 import java.util.Date;
 import ro.ase.ie.g1106_s04.model.GenreEnum;
+import ro.ase.ie.g1106_s04.model.ParentalGuidanceEnum;
 
 public class DateTimeConverter {
     @TypeConverter
@@ -24,4 +25,14 @@ public class DateTimeConverter {
     public GenreEnum toGenre(String value) {
         return value == null ? null : GenreEnum.valueOf(value);
     }
+
+    @TypeConverter
+    public String fromGuidance(ParentalGuidanceEnum guidance) {
+        return guidance == null ? null : guidance.name();
+    }
+
+    @TypeConverter
+    public ParentalGuidanceEnum toGuidance(String value) {
+        return value == null ? null : ParentalGuidanceEnum.valueOf(value);
+    }
 }
@@ -0,0 +1,38 @@
+package ro.ase.ie.g1106_s04.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+/**
+ * Re-emits the latest value of a source only after it stayed quiet for a given delay,
+ * so a burst of table invalidations ends up as a single refresh of the observers.
+ */
+public class DebouncedLiveData<T> extends MediatorLiveData<T> {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final long delayMillis;
+    private T pendingValue;
+
+    private final Runnable dispatch = new Runnable() {
+        @Override
+        public void run() {
+            setValue(pendingValue);
+        }
+    };
+
+    public DebouncedLiveData(LiveData<T> source, long delayMillis) {
+        this.delayMillis = delayMillis;
+        addSource(source, value -> {
+            pendingValue = value;
+            handler.removeCallbacks(dispatch);
+            if (getValue() == null) {
+                //first load is not delayed
+                dispatch.run();
+            } else {
+                handler.postDelayed(dispatch, this.delayMillis);
+            }
+        });
+    }
+}
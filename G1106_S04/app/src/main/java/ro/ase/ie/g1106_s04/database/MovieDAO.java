@@ -3,21 +3,46 @@ package ro.ase.ie.g1106_s04.database;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
-import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Update;
+import androidx.room.Upsert;
 
+import java.util.Date;
 import java.util.List;
 
 import ro.ase.ie.g1106_s04.model.Movie;
 
 @Dao
 public interface MovieDAO {
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    long insertMovie(Movie movie);
+    //INSERT, falling back to an in-place UPDATE on conflict (no delete + reinsert like REPLACE)
+    @Upsert
+    long upsertMovie(Movie movie);
 
-    @Delete
-    int deleteMovie(Movie movie);
+    @Insert
+    void insertMovies(List<Movie> movies);
+
+    @Update
+    int updateMovies(List<Movie> movies);
+
+    @Delete(entity = Movie.class)
+    int deleteByKeys(List<MovieKey> keys);
+
+    @Query("UPDATE MovieTable SET rating = :rating WHERE movieTitle = :title AND release = :release")
+    int setRating(String title, Date release, float rating);
+
+    @Update(entity = Movie.class)
+    int setWatched(List<MovieWatchedUpdate> updates);
 
     @Query("SELECT * FROM MovieTable")
     List<Movie> getAllMovies();
+
+    @Query("SELECT * FROM MovieTable WHERE movieTitle = :title AND release = :release")
+    Movie getMovie(String title, Date release);
+
+    //every row with the columns a thumbnail key is made of
+    @Query("SELECT movieTitle, release, rating, posterUrl FROM MovieTable")
+    List<MovieRow> getAllRows();
+
+    @Query("SELECT movieTitle, release, contentHash FROM MovieTable")
+    List<MovieHash> getContentHashes();
 }
@@ -0,0 +1,16 @@
+package ro.ase.ie.g1106_s04.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+import java.util.Date;
+
+public class MovieHash extends MovieKey {
+    @ColumnInfo(name = "contentHash")
+    public Long contentHash;
+
+    public MovieHash(@NonNull String title, @NonNull Date release, Long contentHash) {
+        super(title, release);
+        this.contentHash = contentHash;
+    }
+}
@@ -0,0 +1,26 @@
+package ro.ase.ie.g1106_s04.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+import java.util.Date;
+
+//natural key of a MovieTable row, usable as a partial entity for key-only deletes
+public class MovieKey {
+    @NonNull
+    @ColumnInfo(name = "movieTitle")
+    public String title;
+
+    @NonNull
+    @ColumnInfo(name = "release")
+    public Date release;
+
+    public MovieKey(@NonNull String title, @NonNull Date release) {
+        this.title = title;
+        this.release = release;
+    }
+
+    public static String asString(String title, Date release) {
+        return title + '\u0000' + release.getTime();
+    }
+}
@@ -0,0 +1,27 @@
+package ro.ase.ie.g1106_s04.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+import java.util.Date;
+
+import ro.ase.ie.g1106_s04.model.Movie;
+
+//the columns a list row shows, the full entity is loaded only when a movie is opened
+public class MovieRow extends MovieKey {
+    @ColumnInfo(name = "rating")
+    public Float rating;
+
+    @ColumnInfo(name = "posterUrl")
+    public String posterUrl;
+
+    public MovieRow(@NonNull String title, @NonNull Date release, Float rating, String posterUrl) {
+        super(title, release);
+        this.rating = rating;
+        this.posterUrl = posterUrl;
+    }
+
+    public static MovieRow of(Movie movie) {
+        return new MovieRow(movie.getTitle(), movie.getRelease(), movie.getRating(), movie.getPosterUrl());
+    }
+}
@@ -0,0 +1,29 @@
+package ro.ase.ie.g1106_s04.database;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+/**
+ * Sort modes of the movie list. Every ORDER BY matches, column for column and in a single
+ * direction, one of the MovieTable indices, so SQLite walks the index instead of sorting.
+ */
+public enum MovieSortOrder {
+    RATING("rating DESC, release DESC, movieTitle DESC"),
+    BUDGET("budget DESC, release DESC, movieTitle DESC"),
+    DURATION("duration DESC, release DESC, movieTitle DESC"),
+    RELEASE("release DESC, movieTitle DESC"),
+    TITLE("movieTitle ASC, release ASC");
+
+    //what a list row shows, see MovieRow
+    private static final String ROW_COLUMNS = "movieTitle, release, rating, posterUrl";
+
+    private final String orderBy;
+
+    MovieSortOrder(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    public SupportSQLiteQuery rowQuery() {
+        return new SimpleSQLiteQuery("SELECT " + ROW_COLUMNS + " FROM MovieTable ORDER BY " + orderBy);
+    }
+}
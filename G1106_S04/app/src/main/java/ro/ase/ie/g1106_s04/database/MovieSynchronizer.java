@@ -0,0 +1,86 @@
+package ro.ase.ie.g1106_s04.database;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ro.ase.ie.g1106_s04.model.Movie;
+
+/**
+ * Merges a feed into MovieTable row by row: only rows whose content hash differs from the
+ * stored one are written, so the cost of a sync follows the size of the change.
+ */
+public class MovieSynchronizer {
+    private final DatabaseManager databaseManager;
+
+    public static class SyncResult {
+        public int inserted;
+        public int updated;
+        public int deleted;
+        public int unchanged;
+        //inserted and updated movies, whose thumbnails are (re)made at ingestion
+        public final List<Movie> changed = new ArrayList<>();
+
+        public boolean hasChanges() {
+            return inserted + updated + deleted > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "SyncResult{" + "inserted=" + inserted + ", updated=" + updated +
+                    ", deleted=" + deleted + ", unchanged=" + unchanged + '}';
+        }
+    }
+
+    public MovieSynchronizer(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    public SyncResult merge(List<Movie> feed, boolean deleteMissing) {
+        MovieDAO movieDao = databaseManager.getMovieDao();
+        return databaseManager.runInTransaction(() -> {
+            Map<String, MovieHash> stored = new HashMap<>();
+            for (MovieHash hash : movieDao.getContentHashes()) {
+                stored.put(MovieKey.asString(hash.title, hash.release), hash);
+            }
+
+            //the last record wins when the feed repeats a key
+            Map<String, Movie> incoming = new LinkedHashMap<>();
+            for (Movie movie : feed) {
+                if (movie.getTitle() == null || movie.getRelease() == null)
+                    continue;
+                movie.setContentHash(movie.computeContentHash());
+                incoming.put(MovieKey.asString(movie.getTitle(), movie.getRelease()), movie);
+            }
+
+            SyncResult result = new SyncResult();
+            List<Movie> inserts = new ArrayList<>();
+            List<Movie> updates = new ArrayList<>();
+            for (Map.Entry<String, Movie> entry : incoming.entrySet()) {
+                MovieHash current = stored.remove(entry.getKey());
+                Movie movie = entry.getValue();
+                if (current == null)
+                    inserts.add(movie);
+                else if (!movie.getContentHash().equals(current.contentHash))
+                    updates.add(movie);
+                else
+                    result.unchanged++;
+            }
+
+            if (!inserts.isEmpty())
+                movieDao.insertMovies(inserts);
+            if (!updates.isEmpty())
+                movieDao.updateMovies(updates);
+            result.inserted = inserts.size();
+            result.updated = updates.size();
+            result.changed.addAll(inserts);
+            result.changed.addAll(updates);
+
+            if (deleteMissing && !stored.isEmpty())
+                result.deleted = movieDao.deleteByKeys(new ArrayList<MovieKey>(stored.values()));
+            return result;
+        });
+    }
+}
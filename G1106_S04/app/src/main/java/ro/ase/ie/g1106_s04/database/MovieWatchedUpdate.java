@@ -0,0 +1,30 @@
+package ro.ase.ie.g1106_s04.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+import java.util.Date;
+
+//partial entity: only the key and the watched column are written back to MovieTable
+public class MovieWatchedUpdate {
+    @NonNull
+    @ColumnInfo(name = "movieTitle")
+    public String title;
+
+    @NonNull
+    @ColumnInfo(name = "release")
+    public Date release;
+
+    @ColumnInfo(name = "watched")
+    public Boolean watched;
+
+    public MovieWatchedUpdate(@NonNull String title, @NonNull Date release, Boolean watched) {
+        this.title = title;
+        this.release = release;
+        this.watched = watched;
+    }
+
+    public static MovieWatchedUpdate of(MovieKey key, boolean watched) {
+        return new MovieWatchedUpdate(key.title, key.release, watched);
+    }
+}
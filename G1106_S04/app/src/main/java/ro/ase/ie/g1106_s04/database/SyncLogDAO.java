@@ -0,0 +1,32 @@
+package ro.ase.ie.g1106_s04.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+import ro.ase.ie.g1106_s04.model.SyncLogEntry;
+
+@Dao
+public interface SyncLogDAO {
+    @Insert
+    long insert(SyncLogEntry entry);
+
+    @Query("DELETE FROM SyncLog WHERE id NOT IN (SELECT id FROM SyncLog ORDER BY id DESC LIMIT :keep)")
+    int trim(int keep);
+
+    //the log stays bounded: every append drops what is past the newest `keep` entries
+    @Transaction
+    default void append(SyncLogEntry entry, int keep) {
+        insert(entry);
+        trim(keep);
+    }
+
+    @Query("SELECT * FROM SyncLog ORDER BY id DESC LIMIT :limit")
+    List<SyncLogEntry> getRecent(int limit);
+
+    @Query("SELECT * FROM SyncLog WHERE outcome = 'SUCCESS' ORDER BY id DESC LIMIT 1")
+    SyncLogEntry getLastSuccess();
+}
@@ -0,0 +1,253 @@
+package ro.ase.ie.g1106_s04.model;
+
+import android.database.Cursor;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+import ro.ase.ie.g1106_s04.database.MovieRow;
+import ro.ase.ie.g1106_s04.networking.ThumbnailStore;
+
+/**
+ * Struct-of-arrays copy of the movie list, holding only the columns a row shows: titles and
+ * poster URLs (repeated strings shared), releases as exact millis, ratings as floats with a
+ * flag byte for null. Rows are read through MovieView; the full Movie is loaded from the
+ * database only when it is going to be edited.
+ *
+ * The columns are gap buffers: free slots sit at the last edited position, so an insert or
+ * remove only copies the rows between it and the previous edit instead of the whole tail.
+ */
+public final class CompactCatalog {
+    private static final int NULL_RATING = 1;
+
+    private int size;
+    //free slots are [gapStart, gapStart + gapLength) in every column
+    private int gapStart;
+    private int gapLength;
+    private String[] titles;
+    //exact millis, the row key needs the full release and not just its day
+    private long[] releases;
+    private float[] ratings;
+    private byte[] flags;
+    private String[] posterUrls;
+    //filled the first time a row is bound, so the digest is not recomputed on every bind
+    private String[] thumbnailKeys;
+
+    private CompactCatalog(int capacity) {
+        titles = new String[capacity];
+        releases = new long[capacity];
+        ratings = new float[capacity];
+        flags = new byte[capacity];
+        posterUrls = new String[capacity];
+        thumbnailKeys = new String[capacity];
+        gapLength = capacity;
+    }
+
+    public static CompactCatalog fromRows(List<MovieRow> rows) {
+        CompactCatalog catalog = new CompactCatalog(rows.size());
+        //the pool only lives while the catalog is built
+        HashMap<String, String> strings = new HashMap<>();
+        for (MovieRow row : rows) {
+            catalog.fill(catalog.gapStart++, row.title, row.release.getTime(), row.rating, row.posterUrl, strings);
+            catalog.gapLength--;
+            catalog.size++;
+        }
+        return catalog;
+    }
+
+    //reads the MovieRow columns straight into the arrays, no row objects are made on the way
+    public static CompactCatalog fromCursor(Cursor cursor) {
+        CompactCatalog catalog = new CompactCatalog(cursor.getCount());
+        int title = cursor.getColumnIndexOrThrow("movieTitle");
+        int release = cursor.getColumnIndexOrThrow("release");
+        int rating = cursor.getColumnIndexOrThrow("rating");
+        int posterUrl = cursor.getColumnIndexOrThrow("posterUrl");
+        HashMap<String, String> strings = new HashMap<>();
+        while (cursor.moveToNext()) {
+            catalog.fill(catalog.gapStart++, cursor.getString(title), cursor.getLong(release),
+                    cursor.isNull(rating) ? null : cursor.getFloat(rating), cursor.getString(posterUrl), strings);
+            catalog.gapLength--;
+            catalog.size++;
+        }
+        return catalog;
+    }
+
+    //slot is an index into the arrays, see slot(position)
+    private void fill(int slot, MovieRow row, HashMap<String, String> strings) {
+        fill(slot, row.title, row.release.getTime(), row.rating, row.posterUrl, strings);
+    }
+
+    private void fill(int slot, String title, long releaseMillis, Float rating, String posterUrl,
+                      HashMap<String, String> strings) {
+        titles[slot] = intern(title, strings);
+        releases[slot] = releaseMillis;
+        //null cells are zeroed so rows can be compared column by column
+        flags[slot] = (byte) (rating == null ? NULL_RATING : 0);
+        ratings[slot] = rating == null ? 0 : rating;
+        posterUrls[slot] = intern(posterUrl, strings);
+        thumbnailKeys[slot] = null;
+    }
+
+    private static String intern(String value, HashMap<String, String> strings) {
+        if (value == null || strings == null)
+            return value;
+        String shared = strings.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    private int slot(int position) {
+        return position < gapStart ? position : position + gapLength;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public MovieView view(int position) {
+        return new MovieView(this, position);
+    }
+
+    public void set(int position, MovieRow row) {
+        checkPosition(position, size);
+        fill(slot(position), row, null);
+    }
+
+    public void insert(int position, MovieRow row) {
+        checkPosition(position, size + 1);
+        if (gapLength == 0)
+            grow(size + 1);
+        moveGap(position);
+        fill(gapStart, row, null);
+        gapStart++;
+        gapLength--;
+        size++;
+    }
+
+    public void remove(int position) {
+        checkPosition(position, size);
+        moveGap(position);
+        clearSlots(gapStart + gapLength, gapStart + gapLength + 1);
+        gapLength++;
+        size--;
+    }
+
+    public void move(int from, int to) {
+        MovieRow row = toRow(from);
+        remove(from);
+        insert(to, row);
+    }
+
+    //copies only the rows between the old and the new gap position, column by column
+    private void moveGap(int position) {
+        if (position == gapStart || gapLength == 0) {
+            gapStart = position;
+            return;
+        }
+        if (position < gapStart) {
+            int count = gapStart - position;
+            copyRows(position, position + gapLength, count);
+            clearSlots(position, Math.min(gapStart, position + gapLength));
+        } else {
+            int count = position - gapStart;
+            copyRows(gapStart + gapLength, gapStart, count);
+            clearSlots(Math.max(gapStart + gapLength, position), position + gapLength);
+        }
+        gapStart = position;
+    }
+
+    private void copyRows(int from, int to, int count) {
+        System.arraycopy(titles, from, titles, to, count);
+        System.arraycopy(releases, from, releases, to, count);
+        System.arraycopy(ratings, from, ratings, to, count);
+        System.arraycopy(flags, from, flags, to, count);
+        System.arraycopy(posterUrls, from, posterUrls, to, count);
+        System.arraycopy(thumbnailKeys, from, thumbnailKeys, to, count);
+    }
+
+    //the gap must not keep strings of removed rows alive
+    private void clearSlots(int from, int to) {
+        Arrays.fill(titles, from, to, null);
+        Arrays.fill(posterUrls, from, to, null);
+        Arrays.fill(thumbnailKeys, from, to, null);
+    }
+
+    //the gap is moved to the end first, so growing is a plain copy of every column
+    private void grow(int capacity) {
+        moveGap(size);
+        int grown = Math.max(capacity, titles.length + (titles.length >> 1) + 8);
+        titles = Arrays.copyOf(titles, grown);
+        releases = Arrays.copyOf(releases, grown);
+        ratings = Arrays.copyOf(ratings, grown);
+        flags = Arrays.copyOf(flags, grown);
+        posterUrls = Arrays.copyOf(posterUrls, grown);
+        thumbnailKeys = Arrays.copyOf(thumbnailKeys, grown);
+        gapLength = grown - size;
+    }
+
+    private static void checkPosition(int position, int bound) {
+        if (position < 0 || position >= bound)
+            throw new IndexOutOfBoundsException("Position " + position + ", bound " + bound);
+    }
+
+    public MovieRow toRow(int position) {
+        checkPosition(position, size);
+        int slot = slot(position);
+        return new MovieRow(titles[slot], new Date(releases[slot]),
+                (flags[slot] & NULL_RATING) == 0 ? ratings[slot] : null, posterUrls[slot]);
+    }
+
+    public boolean sameContent(int position, CompactCatalog other, int otherPosition) {
+        int slot = slot(position);
+        int otherSlot = other.slot(otherPosition);
+        return flags[slot] == other.flags[otherSlot]
+                && releases[slot] == other.releases[otherSlot]
+                && Objects.equals(titles[slot], other.titles[otherSlot])
+                && Objects.equals(posterUrls[slot], other.posterUrls[otherSlot])
+                && ratings[slot] == other.ratings[otherSlot];
+    }
+
+    public boolean sameKey(int position, CompactCatalog other, int otherPosition) {
+        int slot = slot(position);
+        int otherSlot = other.slot(otherPosition);
+        return releases[slot] == other.releases[otherSlot]
+                && Objects.equals(titles[slot], other.titles[otherSlot]);
+    }
+
+    public String getKey(int position) {
+        int slot = slot(position);
+        return titles[slot] + '\u0000' + releases[slot];
+    }
+
+    String getTitle(int position) {
+        return titles[slot(position)];
+    }
+
+    long getReleaseMillis(int position) {
+        return releases[slot(position)];
+    }
+
+    boolean hasRating(int position) {
+        return (flags[slot(position)] & NULL_RATING) == 0;
+    }
+
+    float getRating(int position) {
+        return ratings[slot(position)];
+    }
+
+    String getPosterUrl(int position) {
+        return posterUrls[slot(position)];
+    }
+
+    String getThumbnailKey(int position) {
+        int slot = slot(position);
+        String key = thumbnailKeys[slot];
+        if (key == null) {
+            key = ThumbnailStore.keyFor(titles[slot], releases[slot], posterUrls[slot]);
+            thumbnailKeys[slot] = key;
+        }
+        return key;
+    }
+}
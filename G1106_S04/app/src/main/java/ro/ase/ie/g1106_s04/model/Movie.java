@@ -6,15 +6,21 @@ import android.os.Parcelable;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
-import androidx.room.Ignore;
 import androidx.room.Index;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.Objects;
 
 @Entity(tableName = "MovieTable",
         primaryKeys = {"release", "movieTitle"},
-        indices = {@Index("release"), @Index("movieTitle")}
+        indices = {@Index({"movieTitle", "release"}),
+                @Index({"rating", "release", "movieTitle"}),
+                @Index({"budget", "release", "movieTitle"}),
+                @Index({"duration", "release", "movieTitle"})}
 )
 public class Movie implements Parcelable {
     @NonNull
@@ -34,7 +40,7 @@ public class Movie implements Parcelable {
     @ColumnInfo
     private GenreEnum genre;
 
-    @Ignore
+    @ColumnInfo
     private ParentalGuidanceEnum pGuidance;
 
     @ColumnInfo
@@ -46,6 +52,10 @@ public class Movie implements Parcelable {
     @ColumnInfo
     private String posterUrl;
 
+    //hash of the feed record last merged into this row, sync skips rows whose hash still matches
+    @ColumnInfo
+    private Long contentHash;
+
     public Movie() {}
 
     protected Movie(Parcel in) {
@@ -79,6 +89,11 @@ public class Movie implements Parcelable {
             release = null;
         else
             release = new Date(in.readLong());
+
+        if(in.readByte() == 0)
+            contentHash = null;
+        else
+            contentHash = in.readLong();
     }
 
     public static final Creator<Movie> CREATOR = new Creator<Movie>() {
@@ -124,6 +139,13 @@ public class Movie implements Parcelable {
             parcel.writeByte((byte)1);
             parcel.writeLong(release.getTime());
         }
+
+        if(contentHash == null)
+            parcel.writeByte((byte)0);
+        else {
+            parcel.writeByte((byte)1);
+            parcel.writeLong(contentHash);
+        }
     }
 
     @Override
@@ -140,14 +162,28 @@ public class Movie implements Parcelable {
     public void setDuration(Integer duration) { this.duration = duration; }
     public GenreEnum getGenre() { return genre; }
     public void setGenre(GenreEnum genre) { this.genre = genre; }
-    public ParentalGuidanceEnum getpGuidance() { return pGuidance; }
-    public void setpGuidance(ParentalGuidanceEnum pGuidance) { this.pGuidance = pGuidance; }
+    public ParentalGuidanceEnum getPGuidance() { return pGuidance; }
+    public void setPGuidance(ParentalGuidanceEnum pGuidance) { this.pGuidance = pGuidance; }
     public Float getRating() { return rating; }
     public void setRating(Float rating) { this.rating = rating; }
     public Boolean getWatched() { return watched; }
     public void setWatched(Boolean watched) { this.watched = watched; }
     public String getPosterUrl() { return posterUrl; }
     public void setPosterUrl(String posterUrl) { this.posterUrl = posterUrl; }
+    public Long getContentHash() { return contentHash; }
+    public void setContentHash(Long contentHash) { this.contentHash = contentHash; }
+
+    public long computeContentHash() {
+        String content = title + '\u001f' + budget + '\u001f' + (release == null ? null : release.getTime())
+                + '\u001f' + duration + '\u001f' + genre + '\u001f' + pGuidance + '\u001f' + rating
+                + '\u001f' + watched + '\u001f' + posterUrl;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(content.getBytes(StandardCharsets.UTF_8))).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
     @Override
     public boolean equals(Object o) {
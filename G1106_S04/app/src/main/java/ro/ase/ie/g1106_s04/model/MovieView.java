@@ -0,0 +1,27 @@
+package ro.ase.ie.g1106_s04.model;
+
+import java.util.Date;
+
+//a row of a CompactCatalog, reads straight from the column arrays
+public final class MovieView {
+    private final CompactCatalog catalog;
+    private final int position;
+
+    MovieView(CompactCatalog catalog, int position) {
+        this.catalog = catalog;
+        this.position = position;
+    }
+
+    public String getTitle() { return catalog.getTitle(position); }
+    public long getReleaseMillis() { return catalog.getReleaseMillis(position); }
+    public Date getRelease() { return new Date(catalog.getReleaseMillis(position)); }
+    public boolean hasRating() { return catalog.hasRating(position); }
+    public float getRating() { return catalog.getRating(position); }
+    public String getPosterUrl() { return catalog.getPosterUrl(position); }
+    public String getThumbnailKey() { return catalog.getThumbnailKey(position); }
+
+    //same identity as Movie.equals: title and release
+    public String getKey() {
+        return catalog.getKey(position);
+    }
+}
@@ -0,0 +1,56 @@
+package ro.ase.ie.g1106_s04.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+//one background sync run, only the latest few are kept
+@Entity(tableName = "SyncLog")
+public class SyncLogEntry {
+    public static final String SUCCESS = "SUCCESS";
+    public static final String RETRY = "RETRY";
+    public static final String FAILURE = "FAILURE";
+    //another trigger was already running or had just finished
+    public static final String COALESCED = "COALESCED";
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @ColumnInfo
+    public Date startedAt;
+
+    @ColumnInfo
+    public long durationMillis;
+
+    //the unique work that triggered the run
+    @ColumnInfo
+    public String source;
+
+    @ColumnInfo
+    public String outcome;
+
+    @ColumnInfo
+    public int inserted;
+
+    @ColumnInfo
+    public int updated;
+
+    @ColumnInfo
+    public int deleted;
+
+    @ColumnInfo
+    public int unchanged;
+
+    @ColumnInfo
+    public String error;
+
+    @Override
+    public String toString() {
+        return "SyncLogEntry{" + "startedAt=" + startedAt + ", durationMillis=" + durationMillis +
+                ", source='" + source + '\'' + ", outcome='" + outcome + '\'' + ", inserted=" + inserted +
+                ", updated=" + updated + ", deleted=" + deleted + ", unchanged=" + unchanged +
+                ", error='" + error + '\'' + '}';
+    }
+}
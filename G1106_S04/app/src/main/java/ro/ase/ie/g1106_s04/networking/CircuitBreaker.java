@@ -0,0 +1,59 @@
+package ro.ase.ie.g1106_s04.networking;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-host breaker: after a run of consecutive failures the host is skipped for a cool-down
+ * period, then a single probe request decides whether it is closed again.
+ */
+public class CircuitBreaker {
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long OPEN_MILLIS = 30_000;
+    private static final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean open;
+    private boolean probeInFlight;
+    private Thread probeOwner;
+
+    public static CircuitBreaker forHost(String host) {
+        return breakers.computeIfAbsent(host, h -> new CircuitBreaker());
+    }
+
+    public synchronized boolean allowRequest() {
+        if (!open)
+            return true;
+        if (!probeInFlight && System.nanoTime() / 1_000_000 - openedAt >= OPEN_MILLIS) {
+            probeInFlight = true;
+            probeOwner = Thread.currentThread();
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+        probeInFlight = false;
+        probeOwner = null;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (probeInFlight || consecutiveFailures >= FAILURE_THRESHOLD) {
+            open = true;
+            openedAt = System.nanoTime() / 1_000_000;
+            probeInFlight = false;
+            probeOwner = null;
+        }
+    }
+
+    //a probe that ended without an answer from the host (cancelled, crashed) lets the next one through
+    public synchronized void releaseProbe() {
+        if (probeOwner == Thread.currentThread()) {
+            probeInFlight = false;
+            probeOwner = null;
+        }
+    }
+}
@@ -4,15 +4,19 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
 import android.widget.ImageView;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLConnection;
+import java.net.HttpURLConnection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DownloadTask implements Runnable{
+    public static final ExecutorService posterExecutor = Executors.newFixedThreadPool(4);
+    private static final SingleFlight<Bitmap> inFlightPosters = new SingleFlight<>();
+    private static final RequestPolicy policy = RequestPolicy.poster();
     private String url;
     private ImageView imageView;
 
@@ -21,14 +25,24 @@ public class DownloadTask implements Runnable{
         this.imageView = imageView;
     }
 
+    public static Bitmap download(String url) throws IOException {
+        return inFlightPosters.execute(url, () -> policy.execute(url, timeoutMillis -> {
+            HttpURLConnection connection = HttpManager.openConnection(url, timeoutMillis);
+            try (InputStream inputStream = connection.getInputStream()) {
+                Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
+                if (bitmap == null)
+                    throw new PosterPreflight.RejectedException("Could not decode poster " + url);
+                return bitmap;
+            } finally {
+                connection.disconnect();
+            }
+        }));
+    }
+
     @Override
     public void run() {
         try {
-            URL UrlObject = new URL(url);
-            URLConnection urlConnection = UrlObject.openConnection();
-            urlConnection.connect();
-            InputStream inputStream = urlConnection.getInputStream();
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
+            Bitmap bitmap = download(url);
 
             Handler handler = new Handler(Looper.getMainLooper());
 
@@ -38,10 +52,8 @@ public class DownloadTask implements Runnable{
                     imageView.setImageBitmap(bitmap);
                 }
             });
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.w("DownloadTask", "Poster download failed: " + e.getMessage());
         }
     }
 }
@@ -2,51 +2,58 @@ package ro.ase.ie.g1106_s04.networking;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.URL;
 
 public class HttpManager {
+    private static final SingleFlight<String> inFlightRequests = new SingleFlight<>();
     private String urlAdress;
+    private RequestPolicy policy;
 
     public HttpManager(String urlAdress) {
-        this.urlAdress = urlAdress;
+        this(urlAdress, RequestPolicy.feed());
     }
 
-    public String process(){
-        HttpURLConnection connection = null;
-        BufferedReader reader = null;
-        StringBuilder result = new StringBuilder();
+    public HttpManager(String urlAdress, RequestPolicy policy) {
+        this.urlAdress = urlAdress;
+        this.policy = policy;
+    }
 
-        try {
-            URL url = new URL(urlAdress);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.connect();
+    public String process() throws IOException {
+        return inFlightRequests.execute(urlAdress,
+                () -> policy.execute(urlAdress, this::readOnce));
+    }
 
-            InputStream inputStream = connection.getInputStream();
-            reader = new BufferedReader(new InputStreamReader(inputStream));
+    private String readOnce(int timeoutMillis) throws IOException {
+        HttpURLConnection connection = openConnection(urlAdress, timeoutMillis);
+        StringBuilder result = new StringBuilder();
 
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
             String line;
             while( (line = reader.readLine()) != null) {
                 result.append(line);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         } finally {
-            if(connection != null) {
-                connection.disconnect();
-            }
-            if(reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+            connection.disconnect();
         }
         return result.toString();
     }
 
+    public static HttpURLConnection openConnection(String urlAdress, int timeoutMillis) throws IOException {
+        URL url = new URL(urlAdress);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        RequestPolicy.watch(connection);
+        connection.connect();
+
+        int statusCode = connection.getResponseCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            connection.disconnect();
+            throw new HttpStatusException(urlAdress, statusCode);
+        }
+        return connection;
+    }
+
 }
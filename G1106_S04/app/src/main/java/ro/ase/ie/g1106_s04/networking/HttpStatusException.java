@@ -0,0 +1,16 @@
+package ro.ase.ie.g1106_s04.networking;
+
+import java.io.IOException;
+
+public class HttpStatusException extends IOException {
+    private final int statusCode;
+
+    public HttpStatusException(String url, int statusCode) {
+        super("HTTP " + statusCode + " for " + url);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,87 @@
+package ro.ase.ie.g1106_s04.networking;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import ro.ase.ie.g1106_s04.model.GenreEnum;
+import ro.ase.ie.g1106_s04.model.Movie;
+import ro.ase.ie.g1106_s04.model.ParentalGuidanceEnum;
+
+public class MovieFeedParser {
+
+    /**
+     * A feed that is not a JSON array of movies (truncated, an HTML error page served with 200)
+     * fails as a whole, so the sync is retried instead of merging nothing. A single movie without
+     * a valid release is skipped: the release is part of the key and cannot be made up.
+     */
+    public static List<Movie> parse(String jsonResult) throws IOException {
+        List<Movie> list = new ArrayList<>();
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        sdf.setLenient(false);
+
+        try {
+            JSONArray array = new JSONArray(jsonResult);
+            for(int i = 0; i < array.length(); i++){
+                JSONObject obj = array.getJSONObject(i);
+
+                String title = obj.getString("title");
+                double budget = obj.getDouble("budget");
+                String releaseStr = obj.getString("release");
+                Date release;
+                try {
+                    release = sdf.parse(releaseStr);
+                } catch (ParseException e) {
+                    Log.w("MovieFeedParser", "Skipping \"" + title + "\", bad release " + releaseStr);
+                    continue;
+                }
+
+                double rating = obj.getDouble("rating");
+                String poster = obj.getString("poster");
+                int duration = obj.getInt("duration");
+                String genre = obj.getString("genre");
+                boolean watched = obj.getBoolean("watched");
+                String guidance = obj.getString("guidance");
+
+                Movie movie = new Movie();
+                movie.setTitle(title);
+                movie.setBudget(budget);
+                movie.setRelease(release);
+                movie.setRating((float) rating);
+                movie.setPosterUrl(poster);
+                movie.setDuration(duration);
+                movie.setGenre(parseEnum(GenreEnum.class, genre));
+                movie.setWatched(watched);
+                movie.setPGuidance(parseEnum(ParentalGuidanceEnum.class, guidance));
+
+                list.add(movie);
+
+            }
+
+        } catch (JSONException e) {
+            throw new IOException("Malformed movie feed: " + e.getMessage(), e);
+        }
+        return list;
+    }
+
+    //"pg-13" and "PG13" are the same rating; a value the app does not know is stored as null
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        String normalized = value.replaceAll("[^A-Za-z0-9]", "");
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(normalized))
+                return constant;
+        }
+        Log.w("MovieFeedParser", "Unknown " + type.getSimpleName() + " " + value);
+        return null;
+    }
+}
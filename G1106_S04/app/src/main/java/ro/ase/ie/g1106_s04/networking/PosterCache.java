@@ -0,0 +1,24 @@
+package ro.ase.ie.g1106_s04.networking;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+//in-memory poster thumbnails, keyed by ThumbnailStore.keyFor and sized to 1/8 of the heap
+public class PosterCache {
+    private static final LruCache<String, Bitmap> cache =
+            new LruCache<String, Bitmap>((int) (Runtime.getRuntime().maxMemory() / 8)) {
+                @Override
+                protected int sizeOf(String key, Bitmap bitmap) {
+                    return bitmap.getByteCount();
+                }
+            };
+
+    public static Bitmap get(String key) {
+        return cache.get(key);
+    }
+
+    public static void put(String key, Bitmap bitmap) {
+        if (key != null && bitmap != null)
+            cache.put(key, bitmap);
+    }
+}
@@ -0,0 +1,82 @@
+package ro.ase.ie.g1106_s04.networking;
+
+import android.graphics.Bitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.Locale;
+
+/**
+ * Checks a poster URL before the movie is saved. The response must be an image no larger than
+ * MAX_POSTER_BYTES. The bytes are decoded once into a preview and into the list thumbnail.
+ * Cancel it by interrupting the thread, which stops the download at the next chunk.
+ */
+public class PosterPreflight {
+    public static final long MAX_POSTER_BYTES = 5 * 1024 * 1024;
+    private static final RequestPolicy policy = RequestPolicy.poster();
+
+    //the URL answered, but not with a usable poster, so retrying will not help;
+    //also thrown by every decode of poster bytes, RequestPolicy never retries it
+    public static class RejectedException extends IOException {
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    public static class Result {
+        public final String url;
+        public final Bitmap preview;
+        public final Bitmap thumbnail;
+
+        Result(String url, Bitmap preview, Bitmap thumbnail) {
+            this.url = url;
+            this.preview = preview;
+            this.thumbnail = thumbnail;
+        }
+    }
+
+    public static Result run(ThumbnailStore store, String url, int previewWidthPx, int previewHeightPx)
+            throws IOException {
+        byte[] image = policy.execute(url, timeoutMillis -> fetch(url, timeoutMillis));
+        checkCancelled(url);
+        Bitmap preview = ThumbnailStore.decodeScaled(image, previewWidthPx, previewHeightPx);
+        Bitmap thumbnail = store.createThumbnail(image);
+        return new Result(url, preview, thumbnail);
+    }
+
+    private static byte[] fetch(String url, int timeoutMillis) throws IOException {
+        HttpURLConnection connection = HttpManager.openConnection(url, timeoutMillis);
+        try {
+            String contentType = connection.getContentType();
+            if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("image/"))
+                throw new RejectedException("Poster URL does not point to an image (" + contentType + ")");
+            long length = connection.getContentLengthLong();
+            if (length > MAX_POSTER_BYTES)
+                throw new RejectedException("Poster is too large (" + length / 1024 + " KB)");
+
+            //the length header is optional, so the limit is enforced while reading too
+            try (InputStream inputStream = connection.getInputStream()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(length > 0 ? (int) length : 64 * 1024);
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    checkCancelled(url);
+                    bytes.write(buffer, 0, read);
+                    if (bytes.size() > MAX_POSTER_BYTES)
+                        throw new RejectedException("Poster is larger than " + MAX_POSTER_BYTES / 1024 + " KB");
+                }
+                return bytes.toByteArray();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void checkCancelled(String url) throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted())
+            throw new InterruptedIOException("Pre-flight cancelled for " + url);
+    }
+}
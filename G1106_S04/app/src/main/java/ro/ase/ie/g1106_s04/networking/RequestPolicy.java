@@ -0,0 +1,157 @@
+package ro.ase.ie.g1106_s04.networking;
+
+import android.net.Uri;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a network call under an overall deadline, retrying transient failures with
+ * exponential backoff and full jitter, behind the circuit breaker of the target host.
+ * Connections opened during an attempt are cut when the attempt runs out of time, so the
+ * deadline bounds the whole body read and not just every single read() call.
+ */
+public class RequestPolicy {
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+    private static final ThreadLocal<AttemptTimer> currentAttempt = new ThreadLocal<>();
+    private final long deadlineMillis;
+    private final int attemptTimeoutMillis;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public interface Attempt<T> {
+        T run(int timeoutMillis) throws IOException;
+    }
+
+    private static class AttemptTimer {
+        final long deadlineNanos;
+        final List<ScheduledFuture<?>> timers = new ArrayList<>();
+        volatile boolean expired;
+
+        AttemptTimer(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        void cancel() {
+            for (ScheduledFuture<?> timer : timers) {
+                timer.cancel(false);
+            }
+        }
+    }
+
+    //called by HttpManager.openConnection, a no-op outside of an attempt
+    static void watch(HttpURLConnection connection) {
+        AttemptTimer attempt = currentAttempt.get();
+        if (attempt == null)
+            return;
+        long delay = Math.max(0, attempt.deadlineNanos - System.nanoTime());
+        attempt.timers.add(watchdog.schedule(() -> {
+            attempt.expired = true;
+            connection.disconnect();
+        }, delay, TimeUnit.NANOSECONDS));
+    }
+
+    public RequestPolicy(long deadlineMillis, int attemptTimeoutMillis, int maxAttempts,
+                         long baseBackoffMillis, long maxBackoffMillis) {
+        this.deadlineMillis = deadlineMillis;
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public static RequestPolicy feed() {
+        return new RequestPolicy(20_000, 8_000, 4, 500, 4_000);
+    }
+
+    public static RequestPolicy poster() {
+        return new RequestPolicy(10_000, 5_000, 3, 250, 2_000);
+    }
+
+    public <T> T execute(String url, Attempt<T> attempt) throws IOException {
+        String host = Uri.parse(url).getHost();
+        CircuitBreaker breaker = CircuitBreaker.forHost(host == null ? url : host);
+        long deadline = System.nanoTime() / 1_000_000 + deadlineMillis;
+        IOException lastError = null;
+
+        for (int i = 0; i < maxAttempts; i++) {
+            long remaining = deadline - System.nanoTime() / 1_000_000;
+            if (remaining <= 0)
+                break;
+            if (!breaker.allowRequest())
+                throw new IOException("Circuit open for host " + host);
+            int timeoutMillis = (int) Math.min(remaining, attemptTimeoutMillis);
+            AttemptTimer timer = new AttemptTimer(System.nanoTime() + timeoutMillis * 1_000_000L);
+            currentAttempt.set(timer);
+            boolean judged = false;
+            try {
+                T result = attempt.run(timeoutMillis);
+                breaker.onSuccess();
+                judged = true;
+                return result;
+            } catch (IOException e) {
+                //a connection cut by the watchdog surfaces as a closed socket
+                lastError = timer.expired
+                        ? new SocketTimeoutException("Attempt of " + timeoutMillis + " ms exceeded for " + url) : e;
+                if (!isRetryable(lastError)) {
+                    //an HTTP status or a rejected body proves the host answered, anything else says nothing about it
+                    if (lastError instanceof HttpStatusException || lastError instanceof PosterPreflight.RejectedException) {
+                        breaker.onSuccess();
+                        judged = true;
+                    }
+                    throw lastError;
+                }
+                breaker.onFailure();
+                judged = true;
+            } finally {
+                currentAttempt.remove();
+                timer.cancel();
+                if (!judged)
+                    breaker.releaseProbe();
+            }
+
+            long backoff = backoffMillis(i);
+            if (i == maxAttempts - 1 || backoff >= deadline - System.nanoTime() / 1_000_000)
+                break;
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry " + url);
+            }
+        }
+        if (lastError != null)
+            throw lastError;
+        throw new SocketTimeoutException("Deadline of " + deadlineMillis + " ms exceeded for " + url);
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException))
+            return false;
+        if (e instanceof FileNotFoundException)
+            return false;
+        if (e instanceof PosterPreflight.RejectedException)
+            return false;
+        if (e instanceof HttpStatusException) {
+            int code = ((HttpStatusException) e).getStatusCode();
+            return code == 408 || code == 429 || code >= 500;
+        }
+        return true;
+    }
+}
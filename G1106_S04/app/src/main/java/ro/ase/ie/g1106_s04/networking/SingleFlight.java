@@ -0,0 +1,56 @@
+package ro.ase.ie.g1106_s04.networking;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Collapses concurrent calls with the same key into one: the first caller does the work,
+ * the others wait for and share its result (or its failure).
+ */
+public class SingleFlight<T> {
+    private final ConcurrentHashMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+
+    public interface Call<T> {
+        T run() throws IOException;
+    }
+
+    public T execute(String key, Call<T> call) throws IOException {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null)
+            return await(existing);
+
+        try {
+            T result = call.run();
+            created.complete(result);
+            return result;
+        } catch (Throwable e) {
+            //an Error too (an OutOfMemoryError while decoding), the waiters must never hang
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a shared request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+}
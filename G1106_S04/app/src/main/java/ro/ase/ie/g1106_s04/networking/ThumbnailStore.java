@@ -0,0 +1,238 @@
+package ro.ase.ie.g1106_s04.networking;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.widget.ImageView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ro.ase.ie.g1106_s04.model.Movie;
+
+/**
+ * Downloads every poster once at ingestion time and keeps a small JPEG thumbnail on disk,
+ * sized for the movie_item row, so the list never fetches or decodes full-size posters.
+ */
+public class ThumbnailStore {
+    //matches the poster column of movie_item
+    private static final int THUMBNAIL_WIDTH_DP = 96;
+    private static final int THUMBNAIL_HEIGHT_DP = 144;
+    private static final int JPEG_QUALITY = 80;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static volatile ThumbnailStore instance;
+
+    private final File directory;
+    private final int widthPx;
+    private final int heightPx;
+    private final ExecutorService ingestionExecutor = Executors.newFixedThreadPool(2);
+    private final SingleFlight<Bitmap> inFlight = new SingleFlight<>();
+    private final RequestPolicy policy = RequestPolicy.poster();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private ThumbnailStore(Context context) {
+        directory = new File(context.getFilesDir(), "thumbnails");
+        directory.mkdirs();
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        widthPx = Math.round(THUMBNAIL_WIDTH_DP * metrics.density);
+        heightPx = Math.round(THUMBNAIL_HEIGHT_DP * metrics.density);
+    }
+
+    public static ThumbnailStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ThumbnailStore.class) {
+                if (instance == null)
+                    instance = new ThumbnailStore(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    //the poster URL is part of the key, so a new poster gets a new thumbnail
+    public static String keyFor(Movie movie) {
+        return keyFor(movie.getTitle(), movie.getRelease().getTime(), movie.getPosterUrl());
+    }
+
+    public static String keyFor(String title, long releaseMillis, String posterUrl) {
+        String key = title + '\u0000' + releaseMillis + '\u0000' + posterUrl;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            //called while binding rows, so no String.format per byte
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+                hex[2 * i + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void enqueue(Movie movie) {
+        enqueue(keyFor(movie), movie.getPosterUrl());
+    }
+
+    public void enqueue(String key, String posterUrl) {
+        if (posterUrl == null)
+            return;
+        ingestionExecutor.execute(() -> {
+            try {
+                load(key, posterUrl);
+            } catch (IOException e) {
+                Log.w("ThumbnailStore", "Thumbnail not created for " + posterUrl + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public void bind(Movie movie, ImageView imageView) {
+        bind(keyFor(movie), movie.getPosterUrl(), imageView);
+    }
+
+    public void bind(String key, String posterUrl, ImageView imageView) {
+        imageView.setTag(key);
+        Bitmap cached = PosterCache.get(key);
+        if (cached != null) {
+            imageView.setImageBitmap(cached);
+            return;
+        }
+        imageView.setImageResource(android.R.drawable.alert_dark_frame);
+        if (posterUrl == null)
+            return;
+        DownloadTask.posterExecutor.execute(() -> {
+            //a fling recycles holders faster than posters download, stale requests are dropped unstarted
+            if (!key.equals(imageView.getTag()))
+                return;
+            try {
+                Bitmap thumbnail = load(key, posterUrl);
+                handler.post(() -> {
+                    //the holder may have been recycled for another movie meanwhile
+                    if (key.equals(imageView.getTag()))
+                        imageView.setImageBitmap(thumbnail);
+                });
+            } catch (IOException e) {
+                Log.w("ThumbnailStore", "Thumbnail not available for " + posterUrl + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public File fileFor(String key) {
+        return new File(directory, key + ".jpg");
+    }
+
+    public void store(String key, Bitmap thumbnail) throws IOException {
+        File target = fileFor(key);
+        File temp = new File(directory, key + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            thumbnail.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        }
+        if (!temp.renameTo(target))
+            throw new IOException("Could not store thumbnail " + target);
+        PosterCache.put(key, thumbnail);
+    }
+
+    /**
+     * Deletes the thumbnails (and leftover temp files) whose key is not in liveKeys: movies that
+     * were deleted or got a new poster. Returns how many files were removed.
+     */
+    public int prune(Set<String> liveKeys) {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return 0;
+        int removed = 0;
+        for (File file : files) {
+            String name = file.getName();
+            int dot = name.lastIndexOf('.');
+            String key = dot < 0 ? name : name.substring(0, dot);
+            if (!liveKeys.contains(key) && file.delete())
+                removed++;
+        }
+        return removed;
+    }
+
+    private Bitmap load(String key, String posterUrl) throws IOException {
+        return inFlight.execute(key, () -> {
+            Bitmap bitmap = PosterCache.get(key);
+            if (bitmap != null)
+                return bitmap;
+
+            File file = fileFor(key);
+            if (file.exists()) {
+                bitmap = BitmapFactory.decodeFile(file.getAbsolutePath());
+                if (bitmap != null) {
+                    PosterCache.put(key, bitmap);
+                    return bitmap;
+                }
+            }
+
+            bitmap = createThumbnail(download(posterUrl));
+            store(key, bitmap);
+            return bitmap;
+        });
+    }
+
+    private byte[] download(String url) throws IOException {
+        return policy.execute(url, timeoutMillis -> {
+            HttpURLConnection connection = HttpManager.openConnection(url, timeoutMillis);
+            try (InputStream inputStream = connection.getInputStream()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+                return bytes.toByteArray();
+            } finally {
+                connection.disconnect();
+            }
+        });
+    }
+
+    public Bitmap createThumbnail(byte[] image) throws IOException {
+        return decodeScaled(image, widthPx, heightPx);
+    }
+
+    //fits the image inside widthPx x heightPx, never scales up
+    public static Bitmap decodeScaled(byte[] image, int widthPx, int heightPx) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(image, 0, image.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0)
+            throw new PosterPreflight.RejectedException("Poster is not a decodable image");
+
+        //decode already subsampled, then scale the rest of the way
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= widthPx && options.outHeight / (sampleSize * 2) >= heightPx) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap decoded = BitmapFactory.decodeByteArray(image, 0, image.length, options);
+        if (decoded == null)
+            throw new PosterPreflight.RejectedException("Poster is not a decodable image");
+
+        float scale = Math.min((float) widthPx / decoded.getWidth(), (float) heightPx / decoded.getHeight());
+        if (scale >= 1f)
+            return decoded;
+        Bitmap thumbnail = Bitmap.createScaledBitmap(decoded,
+                Math.max(1, Math.round(decoded.getWidth() * scale)),
+                Math.max(1, Math.round(decoded.getHeight() * scale)), true);
+        if (thumbnail != decoded)
+            decoded.recycle();
+        return thumbnail;
+    }
+}
@@ -0,0 +1,169 @@
+package ro.ase.ie.g1106_s04.similarity;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ro.ase.ie.g1106_s04.database.MovieDAO;
+import ro.ase.ie.g1106_s04.model.Movie;
+
+/**
+ * Precomputed top-k table of similar movies. Row i holds the natural key of a movie and its k
+ * nearest neighbours as row numbers (-1 when the bucket had fewer candidates) plus scores.
+ * Stored as a small binary file next to the database, so lookups are a map access.
+ */
+public class SimilarityIndex {
+    private static final int MAGIC = 0x53494D31;
+    private static final String FILE_NAME = "similar_movies.bin";
+    private static volatile SimilarityIndex loaded;
+    private static final AtomicBoolean stale = new AtomicBoolean();
+
+    private final String[] titles;
+    private final long[] releases;
+    private final int k;
+    private final int[] neighbours;
+    private final float[] scores;
+    private HashMap<String, Integer> rows;
+
+    SimilarityIndex(String[] titles, long[] releases, int k, int[] neighbours, float[] scores) {
+        this.titles = titles;
+        this.releases = releases;
+        this.k = k;
+        this.neighbours = neighbours;
+        this.scores = scores;
+    }
+
+    public static class Neighbour {
+        public final String title;
+        public final long releaseMillis;
+        public final float score;
+
+        Neighbour(String title, long releaseMillis, float score) {
+            this.title = title;
+            this.releaseMillis = releaseMillis;
+            this.score = score;
+        }
+    }
+
+    public int size() {
+        return titles.length;
+    }
+
+    public synchronized List<Neighbour> lookup(String title, long releaseMillis) {
+        if (rows == null) {
+            rows = new HashMap<>(titles.length * 2);
+            for (int i = 0; i < titles.length; i++) {
+                rows.put(titles[i] + '\u0000' + releases[i], i);
+            }
+        }
+        List<Neighbour> result = new ArrayList<>();
+        Integer row = rows.get(title + '\u0000' + releaseMillis);
+        if (row == null)
+            return result;
+        for (int j = 0; j < k; j++) {
+            int neighbour = neighbours[row * k + j];
+            if (neighbour < 0)
+                break;
+            result.add(new Neighbour(titles[neighbour], releases[neighbour], scores[row * k + j]));
+        }
+        return result;
+    }
+
+    public List<Neighbour> lookup(Movie movie) {
+        return lookup(movie.getTitle(), movie.getRelease().getTime());
+    }
+
+    //cached in memory after the first read, replaced by every rebuild
+    public static SimilarityIndex load(Context context) throws IOException {
+        SimilarityIndex index = loaded;
+        if (index != null)
+            return index;
+        synchronized (SimilarityIndex.class) {
+            if (loaded == null)
+                loaded = read(fileOf(context));
+            return loaded;
+        }
+    }
+
+    public static boolean exists(Context context) {
+        return fileOf(context).exists();
+    }
+
+    public static SimilarityIndex rebuild(Context context, List<Movie> movies, int k) throws IOException {
+        SimilarityIndex index = SimilarityIndexBuilder.build(movies, k);
+        index.write(fileOf(context));
+        loaded = index;
+        return index;
+    }
+
+    //a local write changed the catalog; true only for the first one since the last rebuildIfStale
+    public static boolean markStale() {
+        return !stale.getAndSet(true);
+    }
+
+    //cleared before the rows are read, so a write that lands meanwhile marks it stale again
+    public static void rebuildIfStale(Context context, MovieDAO dao, int k) throws IOException {
+        if (stale.getAndSet(false))
+            rebuild(context, dao.getAllMovies(), k);
+    }
+
+    private static File fileOf(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    private void write(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(titles.length);
+            out.writeInt(k);
+            for (int i = 0; i < titles.length; i++) {
+                out.writeUTF(titles[i]);
+                out.writeLong(releases[i]);
+            }
+            for (int neighbour : neighbours) {
+                out.writeInt(neighbour);
+            }
+            for (float score : scores) {
+                out.writeFloat(score);
+            }
+        }
+        if (!temp.renameTo(file))
+            throw new IOException("Could not replace " + file);
+    }
+
+    private static SimilarityIndex read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a similarity index: " + file);
+            int size = in.readInt();
+            int k = in.readInt();
+            String[] titles = new String[size];
+            long[] releases = new long[size];
+            for (int i = 0; i < size; i++) {
+                titles[i] = in.readUTF();
+                releases[i] = in.readLong();
+            }
+            int[] neighbours = new int[size * k];
+            for (int i = 0; i < neighbours.length; i++) {
+                neighbours[i] = in.readInt();
+            }
+            float[] scores = new float[size * k];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = in.readFloat();
+            }
+            return new SimilarityIndex(titles, releases, k, neighbours, scores);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package ro.ase.ie.g1106_s04.similarity;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ro.ase.ie.g1106_s04.model.Movie;
+
+/**
+ * Builds a SimilarityIndex without comparing every pair of movies. Movies are only compared
+ * inside their genre, and only with the ones lying within WINDOW places of them when the genre
+ * is sorted by each feature. The neighbours are approximate but the cost stays n * log n.
+ */
+class SimilarityIndexBuilder {
+    private static final int WINDOW = 32;
+    private static final int ROWS_PER_TASK = 1024;
+    //rating, release year, duration, budget, guidance
+    private static final float[] WEIGHTS = {1.0f, 1.0f, 0.5f, 0.5f, 0.75f};
+    private static final int DIMENSIONS = WEIGHTS.length;
+
+    private final int n;
+    private final int k;
+    private final float[][] features;
+    private final int[] bucketStart;
+    private final int[] bucketEnd;
+    private final int[][] order;
+    private final int[][] rank;
+    private final int[] neighbours;
+    private final float[] scores;
+
+    private SimilarityIndexBuilder(List<Movie> movies, int k) {
+        this.n = movies.size();
+        this.k = k;
+        features = new float[DIMENSIONS][n];
+        bucketStart = new int[n];
+        bucketEnd = new int[n];
+        order = new int[DIMENSIONS][n];
+        rank = new int[DIMENSIONS][n];
+        neighbours = new int[n * k];
+        scores = new float[n * k];
+        Arrays.fill(neighbours, -1);
+
+        Calendar calendar = Calendar.getInstance();
+        int[] buckets = new int[n];
+        int bucketCount = 0;
+        for (int i = 0; i < n; i++) {
+            Movie movie = movies.get(i);
+            calendar.setTime(movie.getRelease());
+            features[0][i] = movie.getRating() == null ? 0 : movie.getRating() / 5f;
+            features[1][i] = clamp((calendar.get(Calendar.YEAR) - 1900) / 150f);
+            features[2][i] = movie.getDuration() == null ? 0 : clamp(movie.getDuration() / 300f);
+            features[3][i] = movie.getBudget() == null || movie.getBudget() < 1 ? 0
+                    : clamp((float) Math.log10(movie.getBudget()) / 10f);
+            features[4][i] = movie.getPGuidance() == null ? 0 : movie.getPGuidance().ordinal() / 4f;
+            //bucket 0 holds the movies without a genre
+            buckets[i] = movie.getGenre() == null ? 0 : movie.getGenre().ordinal() + 1;
+            bucketCount = Math.max(bucketCount, buckets[i] + 1);
+        }
+
+        //rows grouped by genre, so every sort below only reorders inside a bucket
+        int[] offsets = new int[bucketCount + 1];
+        for (int bucket : buckets) {
+            offsets[bucket + 1]++;
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            offsets[b + 1] += offsets[b];
+        }
+        int[] members = new int[n];
+        int[] next = Arrays.copyOf(offsets, bucketCount);
+        for (int i = 0; i < n; i++) {
+            members[next[buckets[i]]++] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            bucketStart[i] = offsets[buckets[i]];
+            bucketEnd[i] = offsets[buckets[i] + 1];
+        }
+
+        //features are non-negative, so their float bits sort like the values
+        long[] keys = new long[n];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            for (int p = 0; p < n; p++) {
+                int row = members[p];
+                keys[p] = ((long) Float.floatToIntBits(features[d][row]) << 32) | row;
+            }
+            for (int b = 0; b < bucketCount; b++) {
+                Arrays.parallelSort(keys, offsets[b], offsets[b + 1]);
+            }
+            for (int p = 0; p < n; p++) {
+                int row = (int) keys[p];
+                order[d][p] = row;
+                rank[d][row] = p;
+            }
+        }
+    }
+
+    static SimilarityIndex build(List<Movie> movies, int k) {
+        SimilarityIndexBuilder builder = new SimilarityIndexBuilder(movies, k);
+        ForkJoinPool.commonPool().invoke(builder.new RowRange(0, builder.n));
+
+        String[] titles = new String[builder.n];
+        long[] releases = new long[builder.n];
+        for (int i = 0; i < builder.n; i++) {
+            titles[i] = movies.get(i).getTitle();
+            releases[i] = movies.get(i).getRelease().getTime();
+        }
+        return new SimilarityIndex(titles, releases, k, builder.neighbours, builder.scores);
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+
+    private float distance(int a, int b) {
+        float sum = 0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            float delta = features[d][a] - features[d][b];
+            sum += WEIGHTS[d] * delta * delta;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private void findNeighbours(int row) {
+        int base = row * k;
+        int found = 0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            int from = Math.max(bucketStart[row], rank[d][row] - WINDOW);
+            int to = Math.min(bucketEnd[row], rank[d][row] + WINDOW + 1);
+            for (int p = from; p < to; p++) {
+                int candidate = order[d][p];
+                if (candidate == row || contains(base, found, candidate))
+                    continue;
+                float score = 1f / (1f + distance(row, candidate));
+                if (found == k && score <= scores[base + k - 1])
+                    continue;
+                //insertion into the row's slice, kept sorted by descending score
+                int slot = found < k ? found++ : k - 1;
+                while (slot > 0 && scores[base + slot - 1] < score) {
+                    neighbours[base + slot] = neighbours[base + slot - 1];
+                    scores[base + slot] = scores[base + slot - 1];
+                    slot--;
+                }
+                neighbours[base + slot] = candidate;
+                scores[base + slot] = score;
+            }
+        }
+    }
+
+    private boolean contains(int base, int found, int candidate) {
+        for (int j = 0; j < found; j++) {
+            if (neighbours[base + j] == candidate)
+                return true;
+        }
+        return false;
+    }
+
+    private class RowRange extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        RowRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int row = from; row < to; row++) {
+                    findNeighbours(row);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RowRange(from, middle), new RowRange(middle, to));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ro.ase.ie.g1106_s04.sync;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ro.ase.ie.g1106_s04.database.DatabaseManager;
+import ro.ase.ie.g1106_s04.database.MovieRow;
+import ro.ase.ie.g1106_s04.database.MovieSynchronizer;
+import ro.ase.ie.g1106_s04.model.Movie;
+import ro.ase.ie.g1106_s04.networking.HttpManager;
+import ro.ase.ie.g1106_s04.networking.MovieFeedParser;
+import ro.ase.ie.g1106_s04.networking.ThumbnailStore;
+import ro.ase.ie.g1106_s04.similarity.SimilarityIndex;
+
+/**
+ * Feed ingestion: download, parse, merge the delta into MovieTable, queue the thumbnails of every
+ * inserted or updated movie, drop the thumbnails no row uses any more and rebuild the similar movies
+ * index when the catalog changed.
+ * Blocking, callers run it off the main thread.
+ */
+public class MovieFeedSync {
+    public static final String DEFAULT_FEED_URL = "https://jsonkeeper.com/b/FLBCO";
+    public static final int SIMILAR_MOVIES = 8;
+    private final Context context;
+
+    public MovieFeedSync(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public MovieSynchronizer.SyncResult run(String feedUrl) throws IOException {
+        HttpManager manager = new HttpManager(feedUrl);
+        String result = manager.process();
+        List<Movie> newMovies = MovieFeedParser.parse(result);
+
+        // SAVE TO DATABASE (Background) - only new or changed rows are written
+        MovieSynchronizer.SyncResult syncResult =
+                new MovieSynchronizer(DatabaseManager.getInstance(context)).merge(newMovies, false);
+        ThumbnailStore store = ThumbnailStore.getInstance(context);
+        //a thumbnail already on disk is not downloaded again
+        for (Movie movie : syncResult.changed) {
+            store.enqueue(movie);
+        }
+        //covers local deletes and poster changes since the last sync as well
+        Set<String> liveKeys = new HashSet<>();
+        for (MovieRow row : DatabaseManager.getInstance(context).getMovieDao().getAllRows()) {
+            liveKeys.add(ThumbnailStore.keyFor(row.title, row.release.getTime(), row.posterUrl));
+        }
+        store.prune(liveKeys);
+        if (syncResult.hasChanges() || !SimilarityIndex.exists(context)) {
+            SimilarityIndex.rebuild(context, DatabaseManager.getInstance(context).getMovieDao().getAllMovies(),
+                    SIMILAR_MOVIES);
+        }
+        return syncResult;
+    }
+}
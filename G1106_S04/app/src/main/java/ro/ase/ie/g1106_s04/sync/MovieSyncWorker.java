@@ -0,0 +1,102 @@
+package ro.ase.ie.g1106_s04.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ro.ase.ie.g1106_s04.database.DatabaseManager;
+import ro.ase.ie.g1106_s04.database.MovieSynchronizer;
+import ro.ase.ie.g1106_s04.database.SyncLogDAO;
+import ro.ase.ie.g1106_s04.model.SyncLogEntry;
+
+/**
+ * Runs MovieFeedSync for the works scheduled by SyncScheduler and records every run in SyncLog.
+ * Triggers that overlap (charging and unmetered often become true together) end up as a single
+ * download: a run that finds another one in progress, or a fresh success, returns right away.
+ * A restore holds the same lock through SyncScheduler.pause, so no run overlaps the file swap.
+ */
+public class MovieSyncWorker extends Worker {
+    static final String KEY_SOURCE = "source";
+    static final String KEY_FEED_URL = "feedUrl";
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int LOG_SIZE = 50;
+    private static final long COALESCE_WINDOW_MS = 15 * 60 * 1000;
+    static final ReentrantLock running = new ReentrantLock();
+
+    public MovieSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        SyncLogEntry entry = new SyncLogEntry();
+        entry.startedAt = new Date();
+        entry.source = getInputData().getString(KEY_SOURCE);
+
+        if (!running.tryLock()) {
+            entry.outcome = SyncLogEntry.COALESCED;
+            //the lock may be held by a restore; under the lock swapDatabase takes, the instance cannot
+            //be closed half way through the write. Written before the swap, the entry is simply
+            //replaced along with the rest of the old database
+            synchronized (DatabaseManager.class) {
+                DatabaseManager.getInstance(getApplicationContext()).getSyncLogDao().append(entry, LOG_SIZE);
+            }
+            return Result.success();
+        }
+        //looked up under the lock, a restore may have replaced the instance before it
+        SyncLogDAO syncLog = DatabaseManager.getInstance(getApplicationContext()).getSyncLogDao();
+        try {
+            SyncLogEntry last = syncLog.getLastSuccess();
+            if (last != null && last.startedAt != null
+                    && entry.startedAt.getTime() - last.startedAt.getTime() < COALESCE_WINDOW_MS) {
+                entry.outcome = SyncLogEntry.COALESCED;
+                return Result.success();
+            }
+            return sync(entry);
+        } finally {
+            //an unexpected exception still leaves a readable entry behind
+            if (entry.outcome == null)
+                entry.outcome = SyncLogEntry.FAILURE;
+            entry.durationMillis = System.currentTimeMillis() - entry.startedAt.getTime();
+            syncLog.append(entry, LOG_SIZE);
+            running.unlock();
+        }
+    }
+
+    private String feedUrl() {
+        String feedUrl = getInputData().getString(KEY_FEED_URL);
+        return feedUrl != null ? feedUrl : MovieFeedSync.DEFAULT_FEED_URL;
+    }
+
+    private Result sync(SyncLogEntry entry) {
+        try {
+            MovieSynchronizer.SyncResult result =
+                    new MovieFeedSync(getApplicationContext()).run(feedUrl());
+            entry.outcome = SyncLogEntry.SUCCESS;
+            entry.inserted = result.inserted;
+            entry.updated = result.updated;
+            entry.deleted = result.deleted;
+            entry.unchanged = result.unchanged;
+            Log.d("MovieSyncWorker", result.toString());
+            return Result.success();
+        } catch (IOException e) {
+            entry.error = e.getMessage();
+            Log.w("MovieSyncWorker", "Movie sync failed", e);
+            //WorkManager applies the exponential backoff, a periodic work still runs next period
+            if (getRunAttemptCount() + 1 < MAX_ATTEMPTS) {
+                entry.outcome = SyncLogEntry.RETRY;
+                return Result.retry();
+            }
+            entry.outcome = SyncLogEntry.FAILURE;
+            return Result.failure();
+        }
+    }
+}
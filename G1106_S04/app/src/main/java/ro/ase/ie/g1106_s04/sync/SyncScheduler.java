@@ -0,0 +1,84 @@
+package ro.ase.ie.g1106_s04.sync;
+
+import android.content.Context;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background feed sync. WorkManager has no "charging OR unmetered" constraint, so there are two
+ * unique periodic works, one per condition, and MovieSyncWorker merges their runs. Each work gets
+ * a random first delay and a flex window, so devices do not all hit the feed at the same moment.
+ */
+public class SyncScheduler {
+    static final String CHARGING_WORK = "movie-sync-charging";
+    static final String UNMETERED_WORK = "movie-sync-unmetered";
+    static final String INITIAL_WORK = "movie-sync-initial";
+    private static final long PERIOD_MINUTES = 6 * 60;
+    private static final long FLEX_MINUTES = 60;
+    private static final long BACKOFF_SECONDS = 30;
+
+    public static void schedule(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context.getApplicationContext());
+        schedulePeriodic(workManager, CHARGING_WORK, new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresCharging(true)
+                .build());
+        schedulePeriodic(workManager, UNMETERED_WORK, new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .build());
+    }
+
+    //KEEP leaves an existing schedule, and its jittered start, untouched on every launch
+    private static void schedulePeriodic(WorkManager workManager, String name, Constraints constraints) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(MovieSyncWorker.class,
+                PERIOD_MINUTES, TimeUnit.MINUTES, FLEX_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .setInitialDelay(ThreadLocalRandom.current().nextLong(PERIOD_MINUTES), TimeUnit.MINUTES)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .setInputData(new Data.Builder().putString(MovieSyncWorker.KEY_SOURCE, name).build())
+                .build();
+        workManager.enqueueUniquePeriodicWork(name, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Stops background syncs around a restore: the works are cancelled and the call waits for a
+     * run in progress to finish. Runs that start before resume() only log themselves as coalesced.
+     * Must be paired with resume() on the same thread.
+     */
+    public static void pause(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context.getApplicationContext());
+        workManager.cancelUniqueWork(CHARGING_WORK);
+        workManager.cancelUniqueWork(UNMETERED_WORK);
+        workManager.cancelUniqueWork(INITIAL_WORK);
+        MovieSyncWorker.running.lock();
+    }
+
+    public static void resume(Context context) {
+        MovieSyncWorker.running.unlock();
+        schedule(context);
+    }
+
+    //first run with an empty catalog: one sync on any network, repeated calls join the pending one
+    public static void syncOnce(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(MovieSyncWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .setInputData(new Data.Builder().putString(MovieSyncWorker.KEY_SOURCE, INITIAL_WORK).build())
+                .build();
+        WorkManager.getInstance(context.getApplicationContext())
+                .enqueueUniqueWork(INITIAL_WORK, ExistingWorkPolicy.KEEP, request);
+    }
+}
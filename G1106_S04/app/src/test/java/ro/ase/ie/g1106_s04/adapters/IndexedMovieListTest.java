@@ -0,0 +1,266 @@
+package ro.ase.ie.g1106_s04.adapters;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import ro.ase.ie.g1106_s04.database.MovieRow;
+import ro.ase.ie.g1106_s04.model.CompactCatalog;
+import ro.ase.ie.g1106_s04.model.MovieView;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local tests for IndexedMovieList: every edit and snapshot must reach the callback as the
+ * exact ranges, so a shadow list replaying the callbacks ends up equal to the rows.
+ */
+public class IndexedMovieListTest {
+    private static final String STALE = "?";
+
+    //replays the callbacks on a shadow list, changed or inserted rows are marked stale
+    private static class RecordingCallback implements ListUpdateCallback {
+        final List<String> shadow = new ArrayList<>();
+        final List<String> operations = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, int count) {
+            operations.add("insert " + position + " " + count);
+            for (int i = 0; i < count; i++)
+                shadow.add(position + i, STALE);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            operations.add("remove " + position + " " + count);
+            for (int i = 0; i < count; i++)
+                shadow.remove(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            operations.add("move " + fromPosition + " " + toPosition);
+            shadow.add(toPosition, shadow.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            operations.add("change " + position + " " + count);
+            for (int i = 0; i < count; i++)
+                shadow.set(position + i, STALE);
+        }
+    }
+
+    private RecordingCallback callback;
+    private IndexedMovieList list;
+
+    @Before
+    public void setUp() {
+        callback = new RecordingCallback();
+        list = new IndexedMovieList(callback);
+    }
+
+    private static MovieRow row(String title, float rating) {
+        return new MovieRow(title, new Date(title.hashCode() * 1000L), rating, null);
+    }
+
+    private static List<MovieRow> rows(String... titles) {
+        List<MovieRow> rows = new ArrayList<>();
+        for (String title : titles)
+            rows.add(row(title, 1f));
+        return rows;
+    }
+
+    private static String describe(MovieView view) {
+        return view.getKey() + "|" + view.getRating() + "|" + view.getPosterUrl();
+    }
+
+    //what the shadow should hold after a fresh bind of every stale row
+    private void refreshShadow() {
+        for (int i = 0; i < callback.shadow.size(); i++) {
+            if (STALE.equals(callback.shadow.get(i)))
+                callback.shadow.set(i, describe(list.view(i)));
+        }
+    }
+
+    private void load(List<MovieRow> rows) {
+        list.submit(CompactCatalog.fromRows(rows));
+        refreshShadow();
+        callback.operations.clear();
+    }
+
+    private void submitAndCheck(List<MovieRow> rows) {
+        //rows the adapter has not been told about would keep their old content
+        list.submit(CompactCatalog.fromRows(rows));
+        assertEquals(rows.size(), callback.shadow.size());
+        refreshShadow();
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals("row " + i, describe(list.view(i)), callback.shadow.get(i));
+            assertEquals(i, list.indexOf(list.view(i).getKey()));
+        }
+    }
+
+    @Test
+    public void insert_reportsOnePosition() {
+        load(rows("a", "b", "c"));
+        list.insert(1, row("x", 2f));
+        assertEquals(Collections.singletonList("insert 1 1"), callback.operations);
+        assertEquals(1, list.indexOf(list.view(1).getKey()));
+        assertEquals(3, list.indexOf(list.view(3).getKey()));
+    }
+
+    @Test
+    public void upsert_changesKnownRowAndAppendsNewOne() {
+        load(rows("a", "b"));
+        assertEquals(0, list.upsert(row("a", 5f)));
+        assertEquals(2, list.upsert(row("c", 1f)));
+        assertEquals(Arrays.asList("change 0 1", "insert 2 1"), callback.operations);
+        assertEquals(5f, list.view(0).getRating(), 0f);
+    }
+
+    @Test
+    public void remove_byKeyReindexesTheTail() {
+        load(rows("a", "b", "c", "d"));
+        String key = list.view(1).getKey();
+        assertTrue(list.removeByKey(key));
+        assertFalse(list.removeByKey(key));
+        assertEquals(Collections.singletonList("remove 1 1"), callback.operations);
+        assertEquals(2, list.indexOf(list.view(2).getKey()));
+    }
+
+    @Test
+    public void move_keepsIndexInSync() {
+        load(rows("a", "b", "c", "d"));
+        String key = list.view(0).getKey();
+        list.move(0, 3);
+        assertEquals(Collections.singletonList("move 0 3"), callback.operations);
+        assertEquals(3, list.indexOf(key));
+        assertEquals(0, list.indexOf(list.view(0).getKey()));
+    }
+
+    @Test
+    public void submit_sameRows_reportsNothing() {
+        load(rows("a", "b", "c"));
+        submitAndCheck(rows("a", "b", "c"));
+        assertTrue(callback.operations.isEmpty());
+    }
+
+    @Test
+    public void submit_changedRating_reportsOnlyThatRow() {
+        load(rows("a", "b", "c"));
+        List<MovieRow> next = rows("a", "b", "c");
+        next.get(1).rating = 3f;
+        submitAndCheck(next);
+        assertEquals(Collections.singletonList("change 1 1"), callback.operations);
+    }
+
+    @Test
+    public void submit_rotation_isASingleMove() {
+        load(rows("a", "b", "c", "d", "e"));
+        submitAndCheck(rows("a", "c", "d", "e", "b"));
+        assertEquals(Collections.singletonList("move 1 4"), callback.operations);
+
+        callback.operations.clear();
+        submitAndCheck(rows("b", "a", "c", "d", "e"));
+        assertEquals(Collections.singletonList("move 4 0"), callback.operations);
+    }
+
+    @Test
+    public void submit_middleReplaced_reportsRemovesInsertsAndChanges() {
+        load(rows("a", "b", "c", "d", "e", "f"));
+        List<MovieRow> next = rows("a", "x", "c", "e", "y", "z", "f");
+        next.get(2).rating = 4f;
+        submitAndCheck(next);
+        //b and d leave, c changes, x / y z arrive; a, e and f are not touched
+        assertEquals(Arrays.asList("remove 3 1", "remove 1 1", "insert 1 1", "insert 4 2", "change 2 1"),
+                callback.operations);
+    }
+
+    @Test
+    public void submit_reorderWithChanges_movesAndUpdates() {
+        load(rows("a", "b", "c", "d", "e", "f"));
+        List<MovieRow> next = rows("a", "e", "c", "d", "b", "f");
+        next.get(1).rating = 2f;
+        submitAndCheck(next);
+        assertFalse(callback.operations.contains("change 1 4"));
+        assertTrue(callback.operations.contains("change 1 1"));
+    }
+
+    @Test
+    public void submit_manyMoves_fallsBackToExactRemovesAndInserts() {
+        List<MovieRow> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            rows.add(row("m" + i, 1f));
+        load(rows);
+        List<MovieRow> shuffled = new ArrayList<>(rows);
+        Collections.shuffle(shuffled, new Random(3));
+        submitAndCheck(shuffled);
+        for (String operation : callback.operations)
+            assertFalse(operation, operation.startsWith("move"));
+    }
+
+    @Test
+    public void submit_updatesIndexOfRowsThatLeftAndShifted() {
+        load(rows("a", "b", "c", "d", "e"));
+        String left = list.view(1).getKey();
+        String shifted = list.view(4).getKey();
+        assertEquals(4, list.indexOf(shifted));
+        submitAndCheck(rows("a", "x", "y", "c", "d", "e"));
+        assertEquals(-1, list.indexOf(left));
+        assertEquals(5, list.indexOf(shifted));
+    }
+
+    @Test
+    public void submit_toAndFromEmpty() {
+        submitAndCheck(rows("a", "b"));
+        assertEquals(Collections.singletonList("insert 0 2"), callback.operations);
+        callback.operations.clear();
+        submitAndCheck(new ArrayList<>());
+        assertEquals(Collections.singletonList("remove 0 2"), callback.operations);
+    }
+
+    @Test
+    public void randomSnapshotsAndEdits_keepShadowInSync() {
+        Random random = new Random(11);
+        for (int iteration = 0; iteration < 3000; iteration++) {
+            List<MovieRow> next = new ArrayList<>();
+            for (int i = 0; i < list.size(); i++)
+                next.add(copy(list.view(i)));
+            int op = random.nextInt(7);
+            if (op == 0 && !next.isEmpty()) {
+                next.remove(random.nextInt(next.size()));
+            } else if (op == 1) {
+                next.add(random.nextInt(next.size() + 1), row("m" + iteration, 1f));
+            } else if (op == 2 && !next.isEmpty()) {
+                next.get(random.nextInt(next.size())).rating = (float) random.nextInt(5);
+            } else if (op == 3 && next.size() > 1) {
+                MovieRow moved = next.remove(random.nextInt(next.size()));
+                next.add(random.nextInt(next.size() + 1), moved);
+            } else if (op == 4) {
+                Collections.shuffle(next, random);
+            } else if (op == 5 && next.size() > 2) {
+                //a few rows swap places and a few arrive
+                Collections.swap(next, 0, next.size() - 1);
+                next.add(next.size() / 2, row("s" + iteration, 2f));
+            }
+            if (op == 6 && list.size() > 1) {
+                list.move(random.nextInt(list.size()), random.nextInt(list.size()));
+                refreshShadow();
+            } else {
+                submitAndCheck(next);
+            }
+        }
+    }
+
+    private static MovieRow copy(MovieView view) {
+        return new MovieRow(view.getTitle(), view.getRelease(), view.hasRating() ? view.getRating() : null,
+                view.getPosterUrl());
+    }
+}
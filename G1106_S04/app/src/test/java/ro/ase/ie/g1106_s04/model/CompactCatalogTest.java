@@ -0,0 +1,155 @@
+package ro.ase.ie.g1106_s04.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import ro.ase.ie.g1106_s04.database.MovieRow;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local tests for the gap-buffered columns of CompactCatalog, checked against a plain list.
+ */
+public class CompactCatalogTest {
+    private static MovieRow row(String title, long release, Float rating) {
+        return new MovieRow(title, new Date(release), rating, "https://posters/" + title);
+    }
+
+    private static void assertSameRows(List<MovieRow> expected, CompactCatalog catalog) {
+        assertEquals(expected.size(), catalog.size());
+        for (int i = 0; i < expected.size(); i++) {
+            MovieRow row = expected.get(i);
+            MovieView view = catalog.view(i);
+            assertEquals(row.title, view.getTitle());
+            assertEquals(row.release.getTime(), view.getReleaseMillis());
+            assertEquals(row.rating != null, view.hasRating());
+            if (row.rating != null)
+                assertEquals(row.rating, view.getRating(), 0f);
+            assertEquals(row.posterUrl, view.getPosterUrl());
+        }
+    }
+
+    @Test
+    public void fromRows_keepsOrderAndNullRatings() {
+        List<MovieRow> rows = new ArrayList<>();
+        rows.add(row("Alien", 0, 4.5f));
+        rows.add(row("Brazil", 1000, null));
+        CompactCatalog catalog = CompactCatalog.fromRows(rows);
+        assertSameRows(rows, catalog);
+        assertNull(catalog.toRow(1).rating);
+    }
+
+    @Test
+    public void release_keepsExactMillis() {
+        List<MovieRow> rows = new ArrayList<>();
+        long release = 1_700_000_123_456L;
+        rows.add(row("Heat", release, 4f));
+        CompactCatalog catalog = CompactCatalog.fromRows(rows);
+        catalog.insert(0, row("Up", 86_400_000L, 3f));
+        assertEquals(release, catalog.view(1).getReleaseMillis());
+        assertEquals("Heat" + '\u0000' + release, catalog.getKey(1));
+    }
+
+    @Test
+    public void insert_atFrontMiddleAndEnd() {
+        List<MovieRow> expected = new ArrayList<>();
+        CompactCatalog catalog = CompactCatalog.fromRows(new ArrayList<>());
+        for (int i = 0; i < 40; i++) {
+            MovieRow row = row("m" + i, i, (float) (i % 5));
+            int position = i % 3 == 0 ? 0 : i % 3 == 1 ? expected.size() : expected.size() / 2;
+            expected.add(position, row);
+            catalog.insert(position, row);
+            assertSameRows(expected, catalog);
+        }
+    }
+
+    @Test
+    public void remove_thenInsertAtTheSamePlace() {
+        List<MovieRow> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add(row("m" + i, i, null));
+        }
+        CompactCatalog catalog = CompactCatalog.fromRows(expected);
+        catalog.remove(4);
+        expected.remove(4);
+        catalog.remove(0);
+        expected.remove(0);
+        catalog.remove(catalog.size() - 1);
+        expected.remove(expected.size() - 1);
+        assertSameRows(expected, catalog);
+        MovieRow row = row("new", 99, 2f);
+        catalog.insert(3, row);
+        expected.add(3, row);
+        assertSameRows(expected, catalog);
+    }
+
+    @Test
+    public void move_bothDirections() {
+        List<MovieRow> expected = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            expected.add(row("m" + i, i, (float) i));
+        }
+        CompactCatalog catalog = CompactCatalog.fromRows(expected);
+        catalog.move(1, 6);
+        expected.add(6, expected.remove(1));
+        assertSameRows(expected, catalog);
+        catalog.move(7, 0);
+        expected.add(0, expected.remove(7));
+        assertSameRows(expected, catalog);
+    }
+
+    @Test
+    public void set_replacesOnlyThatRow() {
+        List<MovieRow> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(row("m" + i, i, null));
+        }
+        CompactCatalog catalog = CompactCatalog.fromRows(expected);
+        catalog.remove(2);
+        expected.remove(2);
+        MovieRow row = row("m3", 3, 5f);
+        catalog.set(2, row);
+        expected.set(2, row);
+        assertSameRows(expected, catalog);
+    }
+
+    @Test
+    public void randomEdits_matchAList() {
+        Random random = new Random(7);
+        List<MovieRow> expected = new ArrayList<>();
+        CompactCatalog catalog = CompactCatalog.fromRows(expected);
+        for (int i = 0; i < 2000; i++) {
+            int op = random.nextInt(4);
+            if (op == 0 || expected.isEmpty()) {
+                MovieRow row = row("m" + i, i, random.nextBoolean() ? null : (float) random.nextInt(6));
+                int position = random.nextInt(expected.size() + 1);
+                expected.add(position, row);
+                catalog.insert(position, row);
+            } else if (op == 1) {
+                int position = random.nextInt(expected.size());
+                expected.remove(position);
+                catalog.remove(position);
+            } else if (op == 2) {
+                int from = random.nextInt(expected.size());
+                int to = random.nextInt(expected.size());
+                expected.add(to, expected.remove(from));
+                catalog.move(from, to);
+            } else {
+                int position = random.nextInt(expected.size());
+                MovieRow row = row("s" + i, i, 1f);
+                expected.set(position, row);
+                catalog.set(position, row);
+            }
+        }
+        assertSameRows(expected, catalog);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void remove_pastTheEnd_throws() {
+        CompactCatalog.fromRows(new ArrayList<>()).remove(0);
+    }
+}